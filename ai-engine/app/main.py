@@ -1,12 +1,14 @@
 from __future__ import annotations
 
+import asyncio
+import os
 from datetime import datetime, timezone
 from decimal import Decimal, ROUND_HALF_UP
 from typing import Any, Dict, List, Optional
 
 from fastapi import FastAPI, Query
 from fastapi.middleware.cors import CORSMiddleware
-from pydantic import BaseModel, Field
+from pydantic import BaseModel, Field, ValidationError
 
 app = FastAPI(title="EcoPulse AI Engine", version="1.0.0")
 
@@ -18,6 +20,16 @@ app.add_middleware(
     allow_headers=["*"] ,
 )
 
+# Artificial per-request latency for load testing the backend against a slow engine, e.g. STUB_LATENCY_MS=2000.
+STUB_LATENCY_MS = int(os.environ.get("STUB_LATENCY_MS", "0"))
+
+if STUB_LATENCY_MS > 0:
+    @app.middleware("http")
+    async def _stub_latency(request, call_next):
+        if request.url.path != "/healthz":
+            await asyncio.sleep(STUB_LATENCY_MS / 1000)
+        return await call_next(request)
+
 REGION_INTENSITY_G_PER_KWH: Dict[str, Decimal] = {
     "asia-south1": Decimal("710"),
     "asia-east1": Decimal("520"),
@@ -75,6 +87,25 @@ class EmissionCalcResponse(BaseModel):
     extras: Optional[Dict[str, Any]] = None
 
 
+MAX_CALC_BATCH = 500
+
+
+class EmissionCalcBatchRequest(BaseModel):
+    # Validated one by one in the handler, so an invalid item fails alone instead of the whole batch.
+    items: List[Dict[str, Any]] = Field(..., min_length=1, max_length=MAX_CALC_BATCH)
+
+
+class EmissionCalcItemError(BaseModel):
+    index: int
+    message: str
+
+
+class EmissionCalcBatchResponse(BaseModel):
+    # Same order as the request items; null where the item is listed in errors.
+    results: List[Optional[EmissionCalcResponse]]
+    errors: List[EmissionCalcItemError] = Field(default_factory=list)
+
+
 class AdvisorRequest(BaseModel):
     model: str
     region: str
@@ -170,6 +201,24 @@ def emissions_calculate(req: EmissionCalcRequest) -> EmissionCalcResponse:
     )
 
 
+@app.post("/emissions/calculate/batch", response_model=EmissionCalcBatchResponse)
+def emissions_calculate_batch(req: EmissionCalcBatchRequest) -> EmissionCalcBatchResponse:
+    results: List[Optional[EmissionCalcResponse]] = []
+    errors: List[EmissionCalcItemError] = []
+    for index, item in enumerate(req.items):
+        try:
+            results.append(emissions_calculate(EmissionCalcRequest.model_validate(item)))
+        except ValidationError as e:
+            results.append(None)
+            errors.append(EmissionCalcItemError(index=index, message="; ".join(
+                f"{'.'.join(str(part) for part in err['loc'])}: {err['msg']}" for err in e.errors()
+            )))
+        except ArithmeticError as e:
+            results.append(None)
+            errors.append(EmissionCalcItemError(index=index, message=f"calculation failed: {e}"))
+    return EmissionCalcBatchResponse(results=results, errors=errors)
+
+
 @app.post("/advisor", response_model=AdvisorResponse)
 def advisor(req: AdvisorRequest) -> AdvisorResponse:
     region = _normalize_region(req.region)
@@ -278,6 +327,11 @@ def v1_emissions_calculate(req: EmissionCalcRequest) -> EmissionCalcResponse:
     return emissions_calculate(req)
 
 
+@app.post("/v1/emissions/calculate/batch", response_model=EmissionCalcBatchResponse)
+def v1_emissions_calculate_batch(req: EmissionCalcBatchRequest) -> EmissionCalcBatchResponse:
+    return emissions_calculate_batch(req)
+
+
 @app.post("/v1/advisor/ask", response_model=AdvisorResponse)
 def v1_advisor(req: AdvisorRequest) -> AdvisorResponse:
     return advisor(req)
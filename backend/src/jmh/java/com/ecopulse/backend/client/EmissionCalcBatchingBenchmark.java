@@ -0,0 +1,106 @@
+package com.ecopulse.backend.client;
+
+import com.ecopulse.backend.config.BackendProperties;
+import com.ecopulse.backend.config.WebClientConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Concurrent calculateEmissions callers against an in-process ai-engine stub that charges a fixed cost per
+// HTTP call, one request per call versus micro-batched calls.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmissionCalcBatchingBenchmark {
+    private static final String RESULT = """
+            {"energyKwh":0.00012000,"co2Grams":0.04920000,"waterLiters":0.00021600,"greenScore":100,"extras":null}""";
+
+    @Param({"2"})
+    public int stubCallMillis;
+
+    private HttpServer server;
+    private AiEngineClient unbatched;
+    private AiEngineClient batched;
+    private final AiEngineClient.EmissionCalcRequest request = new AiEngineClient.EmissionCalcRequest(
+            "gpt-4o-mini", "us-east1", 1200, 1.5, new BigDecimal("0.00024"), new BigDecimal("410"), new BigDecimal("1.8")
+    );
+
+    @Setup
+    public void setUp() throws IOException {
+        var objectMapper = new ObjectMapper();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/emissions/calculate", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            respond(exchange, RESULT);
+        });
+        server.createContext("/emissions/calculate/batch", exchange -> {
+            var items = objectMapper.readTree(exchange.getRequestBody()).get("items").size();
+            respond(exchange, "{\"results\":[" + String.join(",", Collections.nCopies(items, RESULT)) + "]}");
+        });
+        server.start();
+
+        var baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        unbatched = client(baseUrl, false);
+        batched = client(baseUrl, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public Object unbatched() {
+        return unbatched.calculateEmissions(request).orElseThrow();
+    }
+
+    @Benchmark
+    public Object batched() {
+        return batched.calculateEmissions(request).orElseThrow();
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        try {
+            Thread.sleep(stubCallMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static AiEngineClient client(String baseUrl, boolean batching) {
+        var aiEngine = new BackendProperties.AiEngineProperties(
+                baseUrl,
+                new BackendProperties.AiEngineResilienceProperties(50, 20, 10, Duration.ofSeconds(30), 3, 1024),
+                new BackendProperties.AiEngineBatchProperties(batching, 64, Duration.ofMillis(2)),
+                new BackendProperties.AiEngineHedgingProperties(false, 0.95, 50, Duration.ofMillis(50), 10),
+                new BackendProperties.AiEngineConnectionPoolProperties(256, 1024, Duration.ofSeconds(1), Duration.ofSeconds(4))
+        );
+        var properties = new BackendProperties(
+                null, aiEngine, null, null, null, null, null, null, null
+        );
+        var config = new WebClientConfig();
+        return new AiEngineClient(config.webClientBuilder(config.aiEngineConnectionProvider(properties)), properties, new SimpleMeterRegistry());
+    }
+}
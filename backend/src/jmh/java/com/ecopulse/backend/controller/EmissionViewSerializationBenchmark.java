@@ -0,0 +1,69 @@
+package com.ecopulse.backend.controller;
+
+import com.ecopulse.backend.model.EmissionLog;
+import com.ecopulse.backend.model.Role;
+import com.ecopulse.backend.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+// Serializes one /api/emissions/history page the way the MVC message converter does.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmissionViewSerializationBenchmark {
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<EmissionLog> logs;
+    private Page<EmissionController.EmissionView> views;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        var user = new User("user@ecopulse.ai", "x", Role.USER, "EcoPulse User");
+        var content = new ArrayList<EmissionLog>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            var log = new EmissionLog(user);
+            log.setModel(i % 2 == 0 ? "gpt-4o" : "gpt-4o-mini");
+            log.setRegion("us-central1");
+            log.setTokens(40_000 + i);
+            log.setRuntimeSeconds(55);
+            log.setModelPowerFactor(new BigDecimal("0.0000040"));
+            log.setRegionCarbonIntensity(new BigDecimal("410"));
+            log.setWaterFactor(new BigDecimal("1.8"));
+            log.setEnergyKwh(new BigDecimal("0.00244444"));
+            log.setCo2Grams(new BigDecimal("1.00222040"));
+            log.setWaterLiters(new BigDecimal("0.00439999"));
+            log.setGreenScore(100);
+            content.add(log);
+        }
+        logs = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+        views = logs.map(EmissionController.EmissionView::from);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(views);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(logs.map(EmissionController.EmissionView::from));
+    }
+}
@@ -0,0 +1,33 @@
+package com.ecopulse.backend.model.id;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Generation cost only; the insert and index-size comparison runs against Postgres in
+// src/jmh/sql/uuid-primary-key-insert.sql.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeOrderedUuidBenchmark {
+    @Benchmark
+    public UUID randomV4() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public UUID timeOrderedV7() {
+        return TimeOrderedUuid.next();
+    }
+
+    // Contended case: every thread competes for the shared timestamp/sequence word.
+    @Benchmark
+    @Threads(4)
+    public UUID timeOrderedV7Contended() {
+        return TimeOrderedUuid.next();
+    }
+}
@@ -0,0 +1,97 @@
+package com.ecopulse.backend.service.calc;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Compares the BigDecimal reference formula with the fixed-point kernel. Run with -prof gc to see the
+// allocation rate: fixedPointKernel should report ~0 B/op, calculator only the boundary BigDecimals.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmissionCalculatorBenchmark {
+    private final LocalEmissionCalculator calculator = new LocalEmissionCalculator();
+
+    private EmissionCalculator.Inputs inputs;
+    // A measured duration with more fraction digits than the kernel's fast decimal recovery handles.
+    private EmissionCalculator.Inputs measuredInputs;
+    private long powerFactorUnscaled;
+    private int powerFactorScale;
+    private long intensityUnscaled;
+    private int intensityScale;
+    private long waterUnscaled;
+    private int waterScale;
+    private BigDecimal co2Grams;
+    private long co2E8;
+
+    @Setup
+    public void setUp() {
+        inputs = new EmissionCalculator.Inputs(
+                "gpt-4o",
+                "us-central1",
+                40_000,
+                55,
+                new BigDecimal("0.0000040"),
+                new BigDecimal("410"),
+                new BigDecimal("1.8")
+        );
+        measuredInputs = new EmissionCalculator.Inputs(
+                inputs.model(), inputs.region(), inputs.tokens(), 55.123456789,
+                inputs.modelPowerFactor(), inputs.regionCarbonIntensity(), inputs.waterFactor()
+        );
+        powerFactorUnscaled = inputs.modelPowerFactor().unscaledValue().longValueExact();
+        powerFactorScale = inputs.modelPowerFactor().scale();
+        intensityUnscaled = inputs.regionCarbonIntensity().unscaledValue().longValueExact();
+        intensityScale = inputs.regionCarbonIntensity().scale();
+        waterUnscaled = inputs.waterFactor().unscaledValue().longValueExact();
+        waterScale = inputs.waterFactor().scale();
+        co2Grams = LocalEmissionCalculator.calculateExact(inputs).co2Grams();
+        co2E8 = co2Grams.unscaledValue().longValueExact();
+    }
+
+    @Benchmark
+    public EmissionCalculator.Result bigDecimal() {
+        return LocalEmissionCalculator.calculateExact(inputs);
+    }
+
+    @Benchmark
+    public EmissionCalculator.Result calculator() {
+        return calculator.calculate(inputs);
+    }
+
+    @Benchmark
+    public EmissionCalculator.Result bigDecimalMeasuredRuntime() {
+        return LocalEmissionCalculator.calculateExact(measuredInputs);
+    }
+
+    @Benchmark
+    public EmissionCalculator.Result calculatorMeasuredRuntime() {
+        return calculator.calculate(measuredInputs);
+    }
+
+    @Benchmark
+    public int greenScoreBigDecimal() {
+        return LocalEmissionCalculator.greenScore(co2Grams, inputs.tokens());
+    }
+
+    @Benchmark
+    public int greenScoreFixedPoint() {
+        return FixedPointEmissionMath.greenScore(co2E8, inputs.tokens());
+    }
+
+    @Benchmark
+    public void fixedPointKernel(Blackhole bh) {
+        var hours = FixedPointEmissionMath.runtimeHoursE12(inputs.runtimeSeconds());
+        var energy = FixedPointEmissionMath.energyE8(inputs.tokens(), powerFactorUnscaled, powerFactorScale, hours);
+        var co2 = FixedPointEmissionMath.multiplyE8(energy, intensityUnscaled, intensityScale);
+        bh.consume(energy);
+        bh.consume(co2);
+        bh.consume(FixedPointEmissionMath.multiplyE8(energy, waterUnscaled, waterScale));
+        bh.consume(FixedPointEmissionMath.greenScore(co2, inputs.tokens()));
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecopulse.backend.service.crypto;
+
+import com.ecopulse.backend.config.BackendProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CryptoServiceBenchmark {
+    private CryptoService cryptoService;
+    private String ciphertext;
+
+    @Param({"EcoPulse User", "A considerably longer full name used to measure how cost scales with payload size"})
+    public String plaintext;
+
+    @Setup
+    public void setUp() {
+        var key = Base64.getEncoder().encodeToString(new byte[32]);
+        cryptoService = new CryptoService(new BackendProperties(
+                null, null, null, new BackendProperties.EncryptionProperties(key), null, null, null, null, null
+        ));
+        cryptoService.init();
+        ciphertext = cryptoService.encryptString(plaintext);
+    }
+
+    @Benchmark
+    public String encryptString() {
+        return cryptoService.encryptString(plaintext);
+    }
+
+    @Benchmark
+    public String decryptString() {
+        return cryptoService.decryptString(ciphertext);
+    }
+}
@@ -0,0 +1,37 @@
+package com.ecopulse.backend.service.security;
+
+import com.ecopulse.backend.config.JwtConfig;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+    private static final Map<String, Object> CLAIMS = Map.of("role", "USER", "uid", "9f1c3e9a-3c1b-4a52-9d0e-1f2b3c4d5e6f");
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(new JwtConfig("benchmark-only-ecopulse-jwt-secret-0000000000000000", "ecopulse-ai", 3600));
+        token = jwtService.issueAccessToken("user@ecopulse.ai", CLAIMS);
+    }
+
+    @Benchmark
+    public String issueAccessToken() {
+        return jwtService.issueAccessToken("user@ecopulse.ai", CLAIMS);
+    }
+
+    @Benchmark
+    public Claims parseAndValidate() {
+        return jwtService.parseAndValidate(token);
+    }
+}
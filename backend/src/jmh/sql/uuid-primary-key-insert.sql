@@ -0,0 +1,55 @@
+-- Random (v4) vs time-ordered (v7) UUID primary keys on a 10M-row synthetic emission_logs shape.
+-- Run against a scratch database:
+--   psql -d ecopulse_bench -f src/jmh/sql/uuid-primary-key-insert.sql
+-- Compare the two "Time:" lines of the inserts and the index sizes/fragmentation reported at the end.
+
+\timing on
+
+create extension if not exists pgstattuple;
+
+-- Same layout as TimeOrderedUuid: 48-bit millisecond timestamp, version 7, random remainder.
+create or replace function bench_uuid_v7(ts timestamptz) returns uuid as $$
+    select encode(
+        set_bit(set_bit(
+            overlay(uuid_send(gen_random_uuid())
+                    placing substring(int8send((extract(epoch from ts) * 1000)::bigint) from 3)
+                    from 1 for 6),
+            52, 1), 53, 1),
+        'hex')::uuid;
+$$ language sql volatile;
+
+drop table if exists bench_logs_v4;
+drop table if exists bench_logs_v7;
+
+create table bench_logs_v4 (
+    id uuid primary key,
+    user_id uuid not null,
+    created_at timestamptz not null,
+    tokens bigint not null,
+    co2grams numeric(18, 8) not null
+);
+create table bench_logs_v7 (like bench_logs_v4 including all);
+
+-- One row per millisecond of simulated time, in arrival order, as the ingest path writes them.
+insert into bench_logs_v4
+select gen_random_uuid(), gen_random_uuid(), now() + i * interval '1 millisecond', 1000 + i % 5000, i % 997
+from generate_series(1, 10000000) as i;
+
+insert into bench_logs_v7
+select bench_uuid_v7(now() + i * interval '1 millisecond'), gen_random_uuid(), now() + i * interval '1 millisecond',
+       1000 + i % 5000, i % 997
+from generate_series(1, 10000000) as i;
+
+select 'v4' as ids,
+       pg_size_pretty(pg_relation_size('bench_logs_v4_pkey')) as pkey_size,
+       (pgstatindex('bench_logs_v4_pkey')).avg_leaf_density,
+       (pgstatindex('bench_logs_v4_pkey')).leaf_fragmentation
+union all
+select 'v7',
+       pg_size_pretty(pg_relation_size('bench_logs_v7_pkey')),
+       (pgstatindex('bench_logs_v7_pkey')).avg_leaf_density,
+       (pgstatindex('bench_logs_v7_pkey')).leaf_fragmentation;
+
+drop table bench_logs_v4;
+drop table bench_logs_v7;
+drop function bench_uuid_v7(timestamptz);
@@ -0,0 +1,83 @@
+// Sustained load against endpoints that call the ai-engine while every engine request takes 2s.
+// With request threads on virtual threads the backend should hold the arrival rate with latency close to
+// the stub delay, and unrelated endpoints (the health probe) should stay fast. Both endpoints answer 200
+// with a "fallback:" rationale when the engine call is rejected or fails, so a response only counts as
+// served when the engine produced it (engine_fallbacks must stay under 1%).
+//
+//   AI_ENGINE_STUB_LATENCY_MS=2000 RATE_LIMIT_PER_MINUTE=1000000 AI_ENGINE_MAX_CONCURRENT_CALLS=256 \
+//     docker compose up --build
+//   k6 run src/loadtest/ai-engine-latency.js
+//
+// Tunables: BASE_URL (default http://localhost:8080), RATE (engine-bound requests per second, default 200),
+// DURATION (default 2m). At 200/s and 2s per call about 400 requests are in flight, twice Tomcat's default
+// platform worker pool, and each engine endpoint holds about 200 of them, so the default bulkhead (64 calls)
+// has to be raised; the connection pool (AI_ENGINE_MAX_CONNECTIONS, default 512) already covers both.
+import http from 'k6/http';
+import { check } from 'k6';
+import { Rate } from 'k6/metrics';
+
+const engineFallbacks = new Rate('engine_fallbacks');
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const RATE = Number(__ENV.RATE || 200);
+const DURATION = __ENV.DURATION || '2m';
+
+export const options = {
+    scenarios: {
+        engine: {
+            executor: 'constant-arrival-rate',
+            exec: 'engineBound',
+            rate: RATE,
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: RATE * 3,
+            maxVUs: RATE * 6,
+        },
+        health: {
+            executor: 'constant-arrival-rate',
+            exec: 'health',
+            rate: 20,
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 10,
+        },
+    },
+    thresholds: {
+        'http_req_failed{scenario:engine}': ['rate<0.01'],
+        'engine_fallbacks': ['rate<0.01'],
+        'http_req_duration{scenario:engine}': ['p(95)<3000'],
+        'http_req_duration{scenario:health}': ['p(95)<200'],
+        'dropped_iterations{scenario:engine}': ['count<' + Math.ceil(RATE)],
+    },
+};
+
+export function setup() {
+    const res = http.post(`${BASE_URL}/api/auth/login`,
+        JSON.stringify({ email: 'user@ecopulse.ai', password: 'user123' }),
+        { headers: { 'Content-Type': 'application/json' } });
+    check(res, { 'logged in': (r) => r.status === 200 });
+    return { token: res.json('accessToken') };
+}
+
+// Scheduler and green-mode optimize are not cached, so every request reaches the engine.
+export function engineBound(data) {
+    const params = { headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${data.token}` } };
+    const tokens = 500 + Math.floor(Math.random() * 5000);
+    const res = __ITER % 2 === 0
+        ? http.post(`${BASE_URL}/api/scheduler/recommendation`, JSON.stringify({
+            model: 'gpt-4o-mini', tokens, runtimeSeconds: 1.5, candidateRegions: ['europe-north1', 'us-east1'],
+        }), params)
+        : http.post(`${BASE_URL}/api/green-mode/optimize`, JSON.stringify({
+            model: 'gpt-4o-mini', region: 'us-east1', tokens, runtimeSeconds: 1.5, constraints: [],
+        }), params);
+    const fallback = res.status === 200 && String(res.json('rationale') || '').startsWith('fallback:');
+    engineFallbacks.add(fallback);
+    check(res, {
+        'status 200': (r) => r.status === 200,
+        'served by engine': () => !fallback,
+    });
+}
+
+export function health() {
+    check(http.get(`${BASE_URL}/actuator/health`), { 'healthy': (r) => r.status === 200 });
+}
@@ -1,113 +1,293 @@
 package com.ecopulse.backend.client;
 
 import com.ecopulse.backend.config.BackendProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class AiEngineClient {
+    private static final Logger log = LoggerFactory.getLogger(AiEngineClient.class);
+    private static final int RECENT_TRANSITIONS = 50;
+
     private final WebClient client;
+    private final Guard regionCarbon;
+    private final Guard calculateEmissions;
+    private final Guard advisor;
+    private final Guard schedule;
+    private final Guard greenModeOptimize;
+    private final EmissionCalcBatcher calculationBatcher;
+    private final RequestHedger hedger;
+    private final RollingLatencyHistogram advisorLatency = new RollingLatencyHistogram(Duration.ofMinutes(1), System::nanoTime);
+    private final RollingLatencyHistogram scheduleLatency = new RollingLatencyHistogram(Duration.ofMinutes(1), System::nanoTime);
+    private final Map<String, Guard> guards = new LinkedHashMap<>();
+    private final Deque<Transition> transitions = new ConcurrentLinkedDeque<>();
+    private final MeterRegistry meterRegistry;
 
-    public AiEngineClient(WebClient.Builder builder, BackendProperties properties) {
+    public AiEngineClient(WebClient.Builder builder, BackendProperties properties, MeterRegistry meterRegistry) {
         this.client = builder
                 .baseUrl(properties.aiEngine().baseUrl())
                 .build();
+        this.meterRegistry = meterRegistry;
+        var resilience = properties.aiEngine().resilience();
+        // A bulkhead wider than the shared connection pool would only queue calls on pool acquires, which
+        // then fail locally; cap it so excess calls fall back at the bulkhead instead.
+        var maxConcurrent = Math.min(resilience.maxConcurrentCalls(), properties.aiEngine().pool().maxConnections());
+        if (maxConcurrent < resilience.maxConcurrentCalls()) {
+            log.warn("ai-engine maxConcurrentCalls {} exceeds the connection pool; capped at {}", resilience.maxConcurrentCalls(), maxConcurrent);
+        }
+        this.regionCarbon = guard("region-carbon", resilience, maxConcurrent);
+        this.calculateEmissions = guard("emissions-calculate", resilience, maxConcurrent);
+        this.advisor = guard("advisor", resilience, maxConcurrent);
+        this.schedule = guard("scheduler", resilience, maxConcurrent);
+        this.greenModeOptimize = guard("green-mode-optimize", resilience, maxConcurrent);
+        var batch = properties.aiEngine().batch();
+        this.calculationBatcher = batch.enabled()
+                ? new EmissionCalcBatcher(batch.maxBatchSize(), batch.maxDelay(), this::calculateEmissionsBatch)
+                : null;
+        var hedging = properties.aiEngine().hedging();
+        this.hedger = hedging != null && hedging.enabled()
+                ? new RequestHedger(hedging.percentile(), hedging.minSamples(), hedging.minDelay(), hedging.budgetPercent(), System::nanoTime, meterRegistry)
+                : null;
     }
 
+    // Each call has an *Async variant that returns the full request, retry and timeout pipeline as a cold Mono.
+    // The blocking variants wait on it and map any failure to empty; request threads are virtual
+    // (spring.threads.virtual.enabled), so waiting parks the thread instead of holding a Tomcat worker.
+    //
+    // Every endpoint has its own circuit breaker and bulkhead around that pipeline, so one breaker call covers
+    // all its retries. An open circuit or a full bulkhead fails immediately with AiEngineUnavailableException
+    // and callers serve their fallback without touching the network.
+
     public Optional<RegionCarbonResponse> regionCarbon(String region) {
-        try {
-            var response = client.get()
-                    .uri(uri -> uri.path("/region-carbon").queryParam("region", region).build())
-                    .accept(MediaType.APPLICATION_JSON)
-                    .retrieve()
-                    .bodyToMono(RegionCarbonResponse.class)
-                    .retryWhen(defaultRetry())
-                    .block(Duration.ofSeconds(5));
-            return Optional.ofNullable(response);
-        } catch (Exception ignored) {
-            return Optional.empty();
-        }
+        return await(regionCarbonAsync(region));
+    }
+
+    public Mono<RegionCarbonResponse> regionCarbonAsync(String region) {
+        return guarded(regionCarbon, client.get()
+                .uri(uri -> uri.path("/region-carbon").queryParam("region", region).build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(RegionCarbonResponse.class)
+                .retryWhen(defaultRetry())
+                .timeout(Duration.ofSeconds(5)));
     }
 
     public Optional<EmissionCalcResponse> calculateEmissions(EmissionCalcRequest request) {
-        try {
-            var response = client.post()
-                    .uri("/emissions/calculate")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .accept(MediaType.APPLICATION_JSON)
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(EmissionCalcResponse.class)
-                    .retryWhen(defaultRetry())
-                    .block(Duration.ofSeconds(6));
-            return Optional.ofNullable(response);
-        } catch (Exception ignored) {
-            return Optional.empty();
-        }
+        return await(calculateEmissionsAsync(request));
+    }
+
+    // With batching enabled, concurrent calls share one /emissions/calculate/batch request; the batch as a
+    // whole passes through the circuit breaker and takes a single bulkhead permit.
+    public Mono<EmissionCalcResponse> calculateEmissionsAsync(EmissionCalcRequest request) {
+        if (calculationBatcher != null) return calculationBatcher.submit(request);
+        return guarded(calculateEmissions, post("/emissions/calculate", request, EmissionCalcResponse.class));
+    }
+
+    // An invalid item comes back in errors, so it fails alone and the batch still counts as a success.
+    private Mono<EmissionCalcBatchResponse> calculateEmissionsBatch(List<EmissionCalcRequest> requests) {
+        return guarded(calculateEmissions, post("/emissions/calculate/batch", new EmissionCalcBatchRequest(requests), EmissionCalcBatchResponse.class));
     }
 
     public Optional<AdvisorResponse> advisor(AdvisorRequest request) {
-        try {
-            var response = client.post()
-                    .uri("/advisor")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .accept(MediaType.APPLICATION_JSON)
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(AdvisorResponse.class)
-                    .retryWhen(defaultRetry())
-                    .block(Duration.ofSeconds(6));
-            return Optional.ofNullable(response);
-        } catch (Exception ignored) {
-            return Optional.empty();
-        }
+        return await(advisorAsync(request));
+    }
+
+    public Mono<AdvisorResponse> advisorAsync(AdvisorRequest request) {
+        return guarded(advisor, hedgedPost(advisorLatency, "/advisor", request, AdvisorResponse.class));
     }
 
     public Optional<SchedulerResponse> schedule(SchedulerRequest request) {
-        try {
-            var response = client.post()
-                    .uri("/scheduler")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .accept(MediaType.APPLICATION_JSON)
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(SchedulerResponse.class)
-                    .retryWhen(defaultRetry())
-                    .block(Duration.ofSeconds(6));
-            return Optional.ofNullable(response);
-        } catch (Exception ignored) {
-            return Optional.empty();
-        }
+        return await(scheduleAsync(request));
+    }
+
+    public Mono<SchedulerResponse> scheduleAsync(SchedulerRequest request) {
+        return guarded(schedule, hedgedPost(scheduleLatency, "/scheduler", request, SchedulerResponse.class));
     }
 
     public Optional<GreenModeOptimizeResponse> greenModeOptimize(GreenModeOptimizeRequest request) {
+        return await(greenModeOptimizeAsync(request));
+    }
+
+    public Mono<GreenModeOptimizeResponse> greenModeOptimizeAsync(GreenModeOptimizeRequest request) {
+        return guarded(greenModeOptimize, post("/green-mode/optimize", request, GreenModeOptimizeResponse.class));
+    }
+
+    private <T> Mono<T> post(String path, Object body, Class<T> responseType) {
+        return exchange(path, body, responseType)
+                .retryWhen(defaultRetry())
+                .timeout(Duration.ofSeconds(6));
+    }
+
+    // Advisor and scheduler calls are idempotent reads, so a slow attempt can be hedged with a second one.
+    // Hedging happens per retry attempt, inside the breaker and bulkhead: both attempts share one permit,
+    // and the breaker sees one outcome for the pair. The hedge budget is earned once per call, outside the retries.
+    private <T> Mono<T> hedgedPost(RollingLatencyHistogram latency, String path, Object body, Class<T> responseType) {
+        if (hedger == null) return post(path, body, responseType);
+        var attempts = hedger.hedge(latency, exchange(path, body, responseType))
+                .retryWhen(defaultRetry())
+                .timeout(Duration.ofSeconds(6));
+        return Mono.defer(() -> {
+            hedger.earn();
+            return attempts;
+        });
+    }
+
+    private <T> Mono<T> exchange(String path, Object body, Class<T> responseType) {
+        return client.post()
+                .uri(path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(responseType);
+    }
+
+    // The pipelines carry their own timeout, so no separate bound is needed here.
+    private static <T> Optional<T> await(Mono<T> response) {
         try {
-            var response = client.post()
-                    .uri("/green-mode/optimize")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .accept(MediaType.APPLICATION_JSON)
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(GreenModeOptimizeResponse.class)
-                    .retryWhen(defaultRetry())
-                    .block(Duration.ofSeconds(6));
-            return Optional.ofNullable(response);
+            return response.blockOptional();
         } catch (Exception ignored) {
             return Optional.empty();
         }
     }
 
+    public Map<String, GuardState> guardStates() {
+        var states = new LinkedHashMap<String, GuardState>();
+        guards.forEach((name, guard) -> states.put(name, guard.state()));
+        return states;
+    }
+
+    public List<Transition> recentTransitions() {
+        return List.copyOf(transitions);
+    }
+
+    // Null when hedging is disabled.
+    public HedgingState hedgingState() {
+        if (hedger == null) return null;
+        var thresholds = new LinkedHashMap<String, Long>();
+        thresholds.put("advisor", thresholdMillis(advisorLatency));
+        thresholds.put("scheduler", thresholdMillis(scheduleLatency));
+        return new HedgingState(thresholds, hedger.savedHedges());
+    }
+
+    private Long thresholdMillis(RollingLatencyHistogram latency) {
+        var nanos = hedger.thresholdNanos(latency);
+        return nanos < 0 ? null : Duration.ofNanos(nanos).toMillis();
+    }
+
+    private <T> Mono<T> guarded(Guard guard, Mono<T> call) {
+        return Mono.defer(() -> {
+            var permit = guard.breaker.tryAcquire();
+            if (permit == CircuitBreaker.NOT_PERMITTED) {
+                return Mono.error(new AiEngineUnavailableException("ai-engine " + guard.name + " circuit is open"));
+            }
+            if (!guard.bulkhead.tryAcquire()) {
+                guard.breaker.onIgnored(permit);
+                guard.rejected.increment();
+                return Mono.error(new AiEngineUnavailableException("ai-engine " + guard.name + " bulkhead is full"));
+            }
+            // Exactly one outcome per permitted call, whichever signal arrives first.
+            var settled = new AtomicBoolean();
+            return call
+                    .doOnSuccess(value -> {
+                        if (settled.compareAndSet(false, true)) guard.breaker.onSuccess(permit);
+                    })
+                    .doOnError(error -> {
+                        if (!settled.compareAndSet(false, true)) return;
+                        if (countsAsFailure(error)) guard.breaker.onFailure(permit);
+                        else guard.breaker.onIgnored(permit);
+                    })
+                    .doOnCancel(() -> {
+                        if (settled.compareAndSet(false, true)) guard.breaker.onIgnored(permit);
+                    })
+                    .doFinally(signal -> guard.bulkhead.release());
+        });
+    }
+
+    // Same classification as retries: what is worth retrying is what signals an unhealthy engine, plus
+    // the overall timeout. 4xx responses are the caller's problem and do not trip the breaker, and neither
+    // does a saturated local connection pool.
+    private static boolean countsAsFailure(Throwable t) {
+        return isRetryable(t) || t instanceof TimeoutException;
+    }
+
+    private Guard guard(String name, BackendProperties.AiEngineResilienceProperties resilience, int maxConcurrent) {
+        var breaker = new CircuitBreaker(
+                name,
+                resilience.failureRateThreshold(),
+                resilience.slidingWindowSize(),
+                resilience.minimumCalls(),
+                resilience.openDuration(),
+                resilience.halfOpenCalls(),
+                System::nanoTime,
+                this::onTransition
+        );
+        var guard = new Guard(
+                name,
+                breaker,
+                new Semaphore(maxConcurrent),
+                maxConcurrent,
+                Counter.builder("ecopulse.aiengine.bulkhead.rejected")
+                        .description("ai-engine calls rejected because the endpoint's bulkhead was full")
+                        .tag("endpoint", name)
+                        .register(meterRegistry)
+        );
+        Gauge.builder("ecopulse.aiengine.circuit.state", breaker, b -> b.snapshot().state().ordinal())
+                .description("0 closed, 1 open, 2 half-open")
+                .tag("endpoint", name)
+                .register(meterRegistry);
+        guards.put(name, guard);
+        return guard;
+    }
+
+    private void onTransition(String name, CircuitBreaker.State from, CircuitBreaker.State to) {
+        if (to == CircuitBreaker.State.OPEN) {
+            log.warn("ai-engine {} circuit {} -> {}", name, from, to);
+        } else {
+            log.info("ai-engine {} circuit {} -> {}", name, from, to);
+        }
+        meterRegistry.counter("ecopulse.aiengine.circuit.transitions", "endpoint", name, "to", to.name().toLowerCase(Locale.ROOT)).increment();
+        transitions.addFirst(new Transition(name, from, to, Instant.now()));
+        while (transitions.size() > RECENT_TRANSITIONS) transitions.pollLast();
+    }
+
+    private record Guard(String name, CircuitBreaker breaker, Semaphore bulkhead, int maxConcurrent, Counter rejected) {
+        GuardState state() {
+            return new GuardState(breaker.snapshot(), maxConcurrent, bulkhead.availablePermits(), (long) rejected.count());
+        }
+    }
+
+    public record GuardState(CircuitBreaker.Snapshot circuit, int maxConcurrentCalls, int availableConcurrentCalls, long bulkheadRejections) {}
+
+    // thresholdMillis is null per endpoint until enough latencies were observed to hedge.
+    public record HedgingState(Map<String, Long> thresholdMillis, double savedHedges) {}
+
+    public record Transition(String endpoint, CircuitBreaker.State from, CircuitBreaker.State to, Instant at) {}
+
     private static Retry defaultRetry() {
         return Retry.backoff(3, Duration.ofMillis(200))
                 .maxBackoff(Duration.ofSeconds(1))
@@ -116,13 +296,23 @@ public class AiEngineClient {
     }
 
     private static boolean isRetryable(Throwable t) {
-        if (t instanceof WebClientRequestException) return true;
+        if (t instanceof WebClientRequestException) return !isPoolExhausted(t);
         if (t instanceof WebClientResponseException ex) {
             return ex.getStatusCode().is5xxServerError();
         }
         return false;
     }
 
+    // Reactor Netty fails an acquire locally when the pool's pending queue is full or the wait times out. It
+    // shades reactor-pool, so the exceptions are matched by name.
+    private static boolean isPoolExhausted(Throwable t) {
+        for (var cause = t.getCause(); cause != null; cause = cause.getCause()) {
+            var name = cause.getClass().getSimpleName();
+            if (name.equals("PoolAcquirePendingLimitException") || name.equals("PoolAcquireTimeoutException")) return true;
+        }
+        return false;
+    }
+
     // DTOs - mirror ai-engine JSON contracts (kept stable and small)
 
     public record RegionCarbonResponse(String region, BigDecimal carbonIntensityGPerKwh, String source) {}
@@ -145,6 +335,13 @@ public class AiEngineClient {
             Map<String, Object> extras
     ) {}
 
+    public record EmissionCalcBatchRequest(List<EmissionCalcRequest> items) {}
+
+    // Results in request order; an item listed in errors has a null result.
+    public record EmissionCalcBatchResponse(List<EmissionCalcResponse> results, List<EmissionCalcItemError> errors) {}
+
+    public record EmissionCalcItemError(int index, String message) {}
+
     public record AdvisorRequest(
             String model,
             String region,
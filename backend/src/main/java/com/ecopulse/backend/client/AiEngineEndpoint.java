@@ -0,0 +1,27 @@
+package com.ecopulse.backend.client;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// GET /actuator/aiengine: circuit state, failure rate and bulkhead usage per ai-engine endpoint, plus the most
+// recent circuit transitions and the current hedging thresholds.
+@Component
+@Endpoint(id = "aiengine")
+public class AiEngineEndpoint {
+    private final AiEngineClient aiEngineClient;
+
+    public AiEngineEndpoint(AiEngineClient aiEngineClient) {
+        this.aiEngineClient = aiEngineClient;
+    }
+
+    @ReadOperation
+    public Status status() {
+        return new Status(aiEngineClient.guardStates(), aiEngineClient.recentTransitions(), aiEngineClient.hedgingState());
+    }
+
+    public record Status(Map<String, AiEngineClient.GuardState> endpoints, List<AiEngineClient.Transition> transitions, AiEngineClient.HedgingState hedging) {}
+}
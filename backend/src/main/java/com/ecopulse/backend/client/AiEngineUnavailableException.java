@@ -0,0 +1,9 @@
+package com.ecopulse.backend.client;
+
+// Raised without contacting the ai-engine: the endpoint's circuit is open or its bulkhead is full. Callers
+// treat it like any other engine failure and serve their fallback.
+public class AiEngineUnavailableException extends RuntimeException {
+    public AiEngineUnavailableException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,163 @@
+package com.ecopulse.backend.client;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Count-based circuit breaker. While CLOSED the outcomes of the last slidingWindowSize calls are kept in a
+// ring; once at least minimumCalls are recorded and the failure rate reaches the threshold it OPENs and
+// rejects calls for openDuration. The next call then moves it to HALF_OPEN, where halfOpenCalls trial calls
+// are let through: all succeeding closes it again, any failure re-opens it.
+//
+// Every permit carries the generation it was granted in, and each state change starts a new generation.
+// Outcomes of calls permitted before the last change are dropped, so a call let through while CLOSED that
+// finishes during HALF_OPEN neither counts as a trial nor hands back a trial permit it never took.
+//
+// Methods are synchronized but never block, so contention costs nanoseconds and virtual threads do not pin.
+public final class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public static final long NOT_PERMITTED = -1;
+
+    public interface TransitionListener {
+        void onTransition(String name, State from, State to);
+    }
+
+    private final String name;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoTime;
+    private final TransitionListener listener;
+
+    private final boolean[] window;
+    private int next;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    private Instant lastTransitionAt;
+    private final AtomicLong notPermitted = new AtomicLong();
+
+    public CircuitBreaker(
+            String name,
+            int failureRateThreshold,
+            int slidingWindowSize,
+            int minimumCalls,
+            Duration openDuration,
+            int halfOpenCalls,
+            LongSupplier nanoTime,
+            TransitionListener listener
+    ) {
+        if (slidingWindowSize < 1 || halfOpenCalls < 1) throw new IllegalArgumentException("window and half-open calls must be positive");
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[slidingWindowSize];
+        this.minimumCalls = Math.min(minimumCalls, slidingWindowSize);
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoTime = nanoTime;
+        this.listener = listener;
+    }
+
+    // Returns a permit, or NOT_PERMITTED. Each permit must be passed to exactly one of onSuccess, onFailure or
+    // onIgnored.
+    public synchronized long tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return generation;
+            case OPEN:
+                if (nanoTime.getAsLong() - openedAt < openNanos) break;
+                transition(State.HALF_OPEN);
+                halfOpenPermits = halfOpenCalls - 1;
+                halfOpenSuccesses = 0;
+                return generation;
+            case HALF_OPEN:
+                if (halfOpenPermits == 0) break;
+                halfOpenPermits--;
+                return generation;
+        }
+        notPermitted.incrementAndGet();
+        return NOT_PERMITTED;
+    }
+
+    public synchronized void onSuccess(long permit) {
+        if (permit != generation) return;
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                resetWindow();
+                transition(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure(long permit) {
+        if (permit != generation) return;
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures * 100L >= (long) failureRateThreshold * recorded) open();
+        }
+    }
+
+    // Cancelled calls and non-failures that say nothing about engine health (e.g. 4xx) give back a trial permit.
+    public synchronized void onIgnored(long permit) {
+        if (permit == generation && state == State.HALF_OPEN) halfOpenPermits++;
+    }
+
+    public synchronized Snapshot snapshot() {
+        var failureRate = recorded == 0 ? -1f : failures * 100f / recorded;
+        return new Snapshot(name, state, failureRate, recorded, failures, notPermitted.get(), lastTransitionAt);
+    }
+
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            if (window[next]) failures--;
+        } else {
+            recorded++;
+        }
+        window[next] = failed;
+        if (failed) failures++;
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        openedAt = nanoTime.getAsLong();
+        resetWindow();
+        transition(State.OPEN);
+    }
+
+    private void resetWindow() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+
+    private void transition(State to) {
+        var from = state;
+        state = to;
+        generation++;
+        lastTransitionAt = Instant.now();
+        listener.onTransition(name, from, to);
+    }
+
+    // failureRate is -1 while no calls are recorded.
+    public record Snapshot(
+            String name,
+            State state,
+            float failureRate,
+            int bufferedCalls,
+            int failedCalls,
+            long notPermittedCalls,
+            Instant lastTransitionAt
+    ) {}
+}
@@ -0,0 +1,116 @@
+package com.ecopulse.backend.client;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Collects concurrent calculate requests and sends them as one batch call: a batch goes out when it reaches
+// maxBatchSize or maxDelay after its first request, whichever comes first. Each caller gets the result at its
+// own position, the engine's error for its item alone, or the batch's error.
+final class EmissionCalcBatcher {
+    // MAX_CALC_BATCH in ai-engine/app/main.py; larger batches are rejected whole with a 422.
+    static final int ENGINE_MAX_BATCH_SIZE = 500;
+
+    private final int maxBatchSize;
+    private final Duration maxDelay;
+    private final Function<List<AiEngineClient.EmissionCalcRequest>, Mono<AiEngineClient.EmissionCalcBatchResponse>> send;
+
+    private List<Pending> pending = new ArrayList<>();
+    private Disposable timer;
+
+    EmissionCalcBatcher(
+            int maxBatchSize,
+            Duration maxDelay,
+            Function<List<AiEngineClient.EmissionCalcRequest>, Mono<AiEngineClient.EmissionCalcBatchResponse>> send
+    ) {
+        if (maxBatchSize < 1 || maxBatchSize > ENGINE_MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("ecopulse.aiEngine.batch.maxBatchSize must be between 1 and " + ENGINE_MAX_BATCH_SIZE);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+        this.send = send;
+    }
+
+    // Cold: the request joins a batch on subscription.
+    Mono<AiEngineClient.EmissionCalcResponse> submit(AiEngineClient.EmissionCalcRequest request) {
+        return Mono.defer(() -> {
+            var result = new CompletableFuture<AiEngineClient.EmissionCalcResponse>();
+            List<Pending> full = null;
+            synchronized (this) {
+                pending.add(new Pending(request, result));
+                if (pending.size() >= maxBatchSize) {
+                    full = take();
+                } else if (pending.size() == 1) {
+                    var batch = pending;
+                    timer = Schedulers.parallel().schedule(() -> flushIfCurrent(batch), maxDelay.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+            if (full != null) dispatch(full);
+            return Mono.fromFuture(result, true);
+        });
+    }
+
+    private void flushIfCurrent(List<Pending> batch) {
+        List<Pending> due = null;
+        synchronized (this) {
+            // A batch that already went out on size leaves a stale timer behind.
+            if (pending == batch && !pending.isEmpty()) due = take();
+        }
+        if (due != null) dispatch(due);
+    }
+
+    private List<Pending> take() {
+        var batch = pending;
+        pending = new ArrayList<>(maxBatchSize);
+        if (timer != null) {
+            timer.dispose();
+            timer = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(List<Pending> batch) {
+        var requests = batch.stream().map(Pending::request).toList();
+        send.apply(requests).subscribe(
+                response -> {
+                    var results = response.results();
+                    if (results == null || results.size() != batch.size()) {
+                        failAll(batch, new IllegalStateException("ai-engine returned " + (results == null ? 0 : results.size())
+                                + " results for a batch of " + batch.size()));
+                        return;
+                    }
+                    if (response.errors() != null) {
+                        for (var error : response.errors()) {
+                            if (error.index() < 0 || error.index() >= batch.size()) continue;
+                            batch.get(error.index()).result().completeExceptionally(
+                                    new IllegalArgumentException("ai-engine rejected the calculation: " + error.message()));
+                        }
+                    }
+                    for (int i = 0; i < batch.size(); i++) {
+                        var result = results.get(i);
+                        if (result != null) {
+                            batch.get(i).result().complete(result);
+                        } else {
+                            batch.get(i).result().completeExceptionally(new IllegalStateException("ai-engine returned no result for the item"));
+                        }
+                    }
+                },
+                error -> failAll(batch, error),
+                () -> failAll(batch, new IllegalStateException("ai-engine returned no batch result"))
+        );
+    }
+
+    // complete* is a no-op for futures that already completed, so the completion callback above is harmless.
+    private static void failAll(List<Pending> batch, Throwable error) {
+        for (var entry : batch) entry.result().completeExceptionally(error);
+    }
+
+    private record Pending(AiEngineClient.EmissionCalcRequest request, CompletableFuture<AiEngineClient.EmissionCalcResponse> result) {}
+}
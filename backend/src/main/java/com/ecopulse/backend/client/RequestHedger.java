@@ -0,0 +1,100 @@
+package com.ecopulse.backend.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Hedged requests: when the first attempt has not answered within the configured latency percentile of
+// recent attempts, a second identical attempt is sent and whichever signals first wins; the other is
+// cancelled. Hedges draw on one budget shared by all hedged endpoints: every logical call earns
+// budgetPercent/100 of a hedge (capped at MAX_SAVED_HEDGES), so hedging can add at most budgetPercent extra
+// load. Callers earn once per call rather than per retry attempt: retries happen when the engine is already
+// struggling, which is exactly when the budget should not grow.
+final class RequestHedger {
+    private static final long TOKEN = 1000;
+    private static final long MAX_SAVED_HEDGES = 20;
+
+    private final double percentile;
+    private final int minSamples;
+    private final long minDelayNanos;
+    private final long earnedPerRequest;
+    private final LongSupplier nanoTime;
+    private final AtomicLong tokens = new AtomicLong();
+
+    private final Counter fired;
+    private final Counter won;
+    private final Counter denied;
+
+    RequestHedger(double percentile, int minSamples, Duration minDelay, int budgetPercent, LongSupplier nanoTime, MeterRegistry meterRegistry) {
+        if (percentile <= 0 || percentile >= 1) throw new IllegalArgumentException("hedging percentile must be between 0 and 1");
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+        this.minDelayNanos = minDelay.toNanos();
+        this.earnedPerRequest = TOKEN * budgetPercent / 100;
+        this.nanoTime = nanoTime;
+        this.fired = hedges(meterRegistry, "fired");
+        this.won = hedges(meterRegistry, "won");
+        this.denied = hedges(meterRegistry, "denied");
+    }
+
+    // attempt must be cold: each subscription sends a new request.
+    <T> Mono<T> hedge(RollingLatencyHistogram latency, Mono<T> attempt) {
+        return Mono.defer(() -> {
+            var primary = timed(latency, attempt);
+            var threshold = latency.quantileNanos(percentile, minSamples);
+            if (threshold < 0) return primary;
+
+            var hedge = Mono.delay(Duration.ofNanos(Math.max(threshold, minDelayNanos)))
+                    .flatMap(tick -> {
+                        if (!spend()) {
+                            denied.increment();
+                            return Mono.<T>never();
+                        }
+                        fired.increment();
+                        return timed(latency, attempt).doOnSuccess(value -> won.increment());
+                    });
+            return Mono.firstWithSignal(primary, hedge);
+        });
+    }
+
+    long thresholdNanos(RollingLatencyHistogram latency) {
+        return latency.quantileNanos(percentile, minSamples);
+    }
+
+    double savedHedges() {
+        return (double) tokens.get() / TOKEN;
+    }
+
+    // A cancelled attempt records how long it had run: a lower bound that keeps slow stalls in the estimate.
+    private <T> Mono<T> timed(RollingLatencyHistogram latency, Mono<T> attempt) {
+        return Mono.defer(() -> {
+            var start = nanoTime.getAsLong();
+            return attempt
+                    .doOnSuccess(value -> latency.record(nanoTime.getAsLong() - start))
+                    .doOnCancel(() -> latency.record(nanoTime.getAsLong() - start));
+        });
+    }
+
+    void earn() {
+        tokens.getAndUpdate(t -> Math.min(MAX_SAVED_HEDGES * TOKEN, t + earnedPerRequest));
+    }
+
+    private boolean spend() {
+        while (true) {
+            var t = tokens.get();
+            if (t < TOKEN) return false;
+            if (tokens.compareAndSet(t, t - TOKEN)) return true;
+        }
+    }
+
+    private static Counter hedges(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ecopulse.aiengine.hedges")
+                .description("Hedged ai-engine attempts: fired, won (answered before the first attempt), or denied by the hedge budget")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,77 @@
+package com.ecopulse.backend.client;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+// Latency distribution over a sliding window, kept as a ring of time slices with logarithmic buckets (10%
+// wide, 1ms to about a minute). Recording is lock-free; a slice is cleared when the ring wraps onto it, and
+// increments racing with that clear may be lost, which is fine for a threshold estimate.
+final class RollingLatencyHistogram {
+    private static final int BUCKETS = 116;
+    private static final double GROWTH = 1.1;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+    private static final int SLICES = 6;
+
+    private final long sliceNanos;
+    private final LongSupplier nanoTime;
+    private final Slice[] slices = new Slice[SLICES];
+
+    RollingLatencyHistogram(Duration window, LongSupplier nanoTime) {
+        this.sliceNanos = Math.max(1, window.toNanos() / SLICES);
+        this.nanoTime = nanoTime;
+        for (int i = 0; i < SLICES; i++) slices[i] = new Slice();
+    }
+
+    void record(long latencyNanos) {
+        var epoch = nanoTime.getAsLong() / sliceNanos;
+        var slice = slices[(int) Math.floorMod(epoch, SLICES)];
+        if (slice.epoch != epoch) slice.reset(epoch);
+        slice.counts.incrementAndGet(bucket(latencyNanos));
+    }
+
+    // Upper bound of the bucket holding quantile q over the window, or -1 with fewer than minSamples.
+    long quantileNanos(double q, int minSamples) {
+        var epoch = nanoTime.getAsLong() / sliceNanos;
+        var merged = new long[BUCKETS];
+        long total = 0;
+        for (var slice : slices) {
+            if (epoch - slice.epoch >= SLICES) continue;
+            for (int i = 0; i < BUCKETS; i++) {
+                var c = slice.counts.get(i);
+                merged[i] += c;
+                total += c;
+            }
+        }
+        if (total == 0 || total < minSamples) return -1;
+
+        var rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += merged[i];
+            if (seen >= rank) return upperBoundNanos(i);
+        }
+        return upperBoundNanos(BUCKETS - 1);
+    }
+
+    private static int bucket(long latencyNanos) {
+        var millis = latencyNanos / 1e6;
+        if (millis <= 1) return 0;
+        return Math.min(BUCKETS - 1, (int) Math.ceil(Math.log(millis) / LOG_GROWTH));
+    }
+
+    private static long upperBoundNanos(int bucket) {
+        return (long) (Math.pow(GROWTH, bucket) * 1e6);
+    }
+
+    private static final class Slice {
+        final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        volatile long epoch = Long.MIN_VALUE / 2;
+
+        synchronized void reset(long newEpoch) {
+            if (epoch == newEpoch) return;
+            for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+            epoch = newEpoch;
+        }
+    }
+}
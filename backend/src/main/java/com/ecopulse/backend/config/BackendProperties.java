@@ -2,19 +2,113 @@ package com.ecopulse.backend.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 @ConfigurationProperties(prefix = "ecopulse")
 public record BackendProperties(
         JwtConfig jwt,
         AiEngineProperties aiEngine,
         SecurityProperties security,
-        EncryptionProperties encryption
+        EncryptionProperties encryption,
+        IngestProperties ingest,
+        CalculatorProperties calculator,
+        RollupProperties rollups,
+        PartitionProperties partitioning,
+        AnalyticsProperties analytics
 ) {
     @ConfigurationProperties(prefix = "ecopulse.aiEngine")
-    public record AiEngineProperties(String baseUrl) {}
+    public record AiEngineProperties(
+            String baseUrl,
+            AiEngineResilienceProperties resilience,
+            AiEngineBatchProperties batch,
+            AiEngineHedgingProperties hedging,
+            AiEngineConnectionPoolProperties pool
+    ) {}
+
+    // Per ai-engine endpoint: the circuit opens when failureRateThreshold percent of the last slidingWindowSize
+    // calls failed (after at least minimumCalls), stays open for openDuration, then lets halfOpenCalls trial
+    // calls through. maxConcurrentCalls bounds in-flight calls (at most pool.maxConnections); excess calls fall
+    // back immediately.
+    @ConfigurationProperties(prefix = "ecopulse.aiEngine.resilience")
+    public record AiEngineResilienceProperties(
+            int failureRateThreshold,
+            int slidingWindowSize,
+            int minimumCalls,
+            Duration openDuration,
+            int halfOpenCalls,
+            int maxConcurrentCalls
+    ) {}
+
+    // Emission calculations sent to the ai-engine are grouped into one batch call of up to maxBatchSize items,
+    // waiting at most maxDelay for the batch to fill. The ai-engine accepts up to 500 items per batch, so a larger
+    // maxBatchSize fails startup.
+    @ConfigurationProperties(prefix = "ecopulse.aiEngine.batch")
+    public record AiEngineBatchProperties(boolean enabled, int maxBatchSize, Duration maxDelay) {}
+
+    // Advisor and scheduler calls send a second attempt when the first has not answered within the given
+    // latency percentile of the last minute (once minSamples attempts were seen, and never before minDelay).
+    // Hedges are limited to budgetPercent of requests across both endpoints.
+    @ConfigurationProperties(prefix = "ecopulse.aiEngine.hedging")
+    public record AiEngineHedgingProperties(boolean enabled, double percentile, int minSamples, Duration minDelay, int budgetPercent) {}
+
+    // Connections to the ai-engine, shared by all endpoints. Reactor Netty's default pool (16 connections,
+    // 32 pending acquires) would cap in-flight engine calls far below the bulkheads. Calls beyond
+    // maxConnections wait up to pendingAcquireTimeout, at most pendingAcquireMaxCount of them. maxIdleTime
+    // stays below uvicorn's 5s keep-alive so the pool never reuses a connection the engine already closed.
+    @ConfigurationProperties(prefix = "ecopulse.aiEngine.pool")
+    public record AiEngineConnectionPoolProperties(
+            int maxConnections,
+            int pendingAcquireMaxCount,
+            Duration pendingAcquireTimeout,
+            Duration maxIdleTime
+    ) {}
 
     @ConfigurationProperties(prefix = "ecopulse.security")
     public record SecurityProperties(int rateLimitPerMinute) {}
 
     @ConfigurationProperties(prefix = "ecopulse.encryption")
     public record EncryptionProperties(String fieldKeyB64) {}
+
+    @ConfigurationProperties(prefix = "ecopulse.ingest")
+    public record IngestProperties(AsyncIngestProperties async, IdempotencyProperties idempotency) {}
+
+    // A group commit is retried up to maxCommitAttempts times; after that its records are spilled to a
+    // dead-letter file in deadLetterDir and replayed later.
+    @ConfigurationProperties(prefix = "ecopulse.ingest.async")
+    public record AsyncIngestProperties(
+            boolean enabled,
+            int queueCapacity,
+            int groupSize,
+            long flushIntervalMs,
+            int maxCommitAttempts,
+            String deadLetterDir
+    ) {}
+
+    @ConfigurationProperties(prefix = "ecopulse.ingest.idempotency")
+    public record IdempotencyProperties(Duration retention, long expectedKeys, double falsePositiveRate) {}
+
+    // mode: "local" (default, in-JVM formula) or "remote" (ai-engine as system of record).
+    @ConfigurationProperties(prefix = "ecopulse.calculator")
+    public record CalculatorProperties(String mode, double shadowSampleRate, int shadowMaxInFlight) {}
+
+    // readEnabled: serve summaries from emission_rollups; switch on once a rebuild has backfilled history.
+    @ConfigurationProperties(prefix = "ecopulse.rollups")
+    public record RollupProperties(boolean readEnabled, String checkCron) {}
+
+    // retentionMonths: whole months of raw logs to keep; 0 keeps everything. Expired partitions are detached,
+    // and dropped as well when dropExpired is set. defaultPartition adds a DEFAULT partition for out-of-range rows.
+    @ConfigurationProperties(prefix = "ecopulse.partitioning")
+    public record PartitionProperties(
+            boolean enabled,
+            int premakeMonths,
+            int retentionMonths,
+            boolean dropExpired,
+            int migrationBatchSize,
+            boolean defaultPartition
+    ) {}
+
+    // In-memory columnar copy of the last windowDays of emission_logs for admin dashboards. Each row costs
+    // about 45 bytes (≈45 MB per million rows); maxRows caps the store and the oldest segments are evicted.
+    @ConfigurationProperties(prefix = "ecopulse.analytics")
+    public record AnalyticsProperties(boolean enabled, int windowDays, int maxRows) {}
 }
@@ -64,6 +64,7 @@ public class DataSeeder implements ApplicationRunner {
                         18,
                         new BigDecimal("0.0000025"),
                         null,
+                        null,
                         null
                 ),
                 new EmissionService.CreateEmissionRequest(
@@ -73,6 +74,7 @@ public class DataSeeder implements ApplicationRunner {
                         35,
                         new BigDecimal("0.0000025"),
                         null,
+                        null,
                         null
                 ),
                 new EmissionService.CreateEmissionRequest(
@@ -82,6 +84,7 @@ public class DataSeeder implements ApplicationRunner {
                         55,
                         new BigDecimal("0.0000040"),
                         null,
+                        null,
                         null
                 ),
                 new EmissionService.CreateEmissionRequest(
@@ -91,6 +94,7 @@ public class DataSeeder implements ApplicationRunner {
                         65,
                         new BigDecimal("0.0000040"),
                         null,
+                        null,
                         null
                 )
         );
@@ -104,7 +108,9 @@ public class DataSeeder implements ApplicationRunner {
         budgetService.create(user, new BudgetService.CreateBudgetRequest(
                 now.minus(5, ChronoUnit.DAYS),
                 now.plus(25, ChronoUnit.DAYS),
-                new BigDecimal("50000")
+                new BigDecimal("50000"),
+                null,
+                false
         ));
     }
 }
@@ -0,0 +1,33 @@
+package com.ecopulse.backend.config;
+
+import com.ecopulse.backend.client.AiEngineClient;
+import com.ecopulse.backend.service.calc.EmissionCalculator;
+import com.ecopulse.backend.service.calc.LocalEmissionCalculator;
+import com.ecopulse.backend.service.calc.RemoteEmissionCalculator;
+import com.ecopulse.backend.service.calc.ShadowVerifyingEmissionCalculator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class EmissionCalculatorConfig {
+    @Bean
+    public EmissionCalculator emissionCalculator(
+            BackendProperties properties,
+            AiEngineClient aiEngineClient,
+            MeterRegistry meterRegistry
+    ) {
+        var config = properties.calculator();
+        var local = new LocalEmissionCalculator();
+
+        if ("remote".equalsIgnoreCase(config.mode())) {
+            return new RemoteEmissionCalculator(aiEngineClient, local);
+        }
+        if (config.shadowSampleRate() > 0) {
+            return new ShadowVerifyingEmissionCalculator(
+                    local, aiEngineClient, config.shadowSampleRate(), config.shadowMaxInFlight(), meterRegistry
+            );
+        }
+        return local;
+    }
+}
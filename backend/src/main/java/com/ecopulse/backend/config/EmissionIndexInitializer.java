@@ -0,0 +1,98 @@
+package com.ecopulse.backend.config;
+
+import com.ecopulse.backend.service.partition.EmissionPartitionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+// Indexes that JPA annotations cannot express. idx_emission_logs_history orders each user's logs by
+// (created_at, id) and carries every other EmissionRow column in INCLUDE, so history pages, keyset seeks, the
+// report table and raw range sums are index-only scans once the visibility map is current. The price is an
+// index close to the table's size, written on every ingest. It supersedes the plain
+// (user_id, created_at[, id]) indexes earlier schema versions created, which are dropped only once a valid
+// build exists.
+@Component
+public class EmissionIndexInitializer {
+    private static final Logger log = LoggerFactory.getLogger(EmissionIndexInitializer.class);
+
+    public static final String HISTORY_INDEX_COLUMNS = "(user_id, created_at, id) include "
+            + "(model, region, tokens, runtime_seconds, energy_kwh, co2grams, water_liters, green_score)";
+
+    private static final String HISTORY_INDEX = "idx_emission_logs_history";
+    private static final String REBUILD_INDEX = "idx_emission_logs_history_next";
+
+    private final JdbcTemplate jdbc;
+    private final EmissionPartitionManager partitionManager;
+
+    public EmissionIndexInitializer(JdbcTemplate jdbc, EmissionPartitionManager partitionManager) {
+        this.jdbc = jdbc;
+        this.partitionManager = partitionManager;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        // CONCURRENTLY keeps ingest running during the build but is not available on partitioned tables,
+        // whose per-partition builds are small.
+        var concurrently = partitionManager.isPartitioned() ? "" : " concurrently";
+
+        // A failed CREATE INDEX CONCURRENTLY leaves an INVALID index behind that the planner never uses.
+        dropIfInvalid(REBUILD_INDEX, concurrently);
+        dropIfInvalid(HISTORY_INDEX, concurrently);
+
+        if (!current(HISTORY_INDEX)) {
+            // Missing, or built by an earlier version with a different column list: build the replacement next
+            // to it so history reads keep an index throughout, then swap the names. A valid replacement left by
+            // a run that stopped before the swap is reused if it has the current column list.
+            log.info("Building index {} on {}", HISTORY_INDEX, HISTORY_INDEX_COLUMNS);
+            if (!current(REBUILD_INDEX)) {
+                jdbc.execute("drop index" + concurrently + " if exists " + REBUILD_INDEX);
+                build(REBUILD_INDEX, concurrently);
+            }
+            jdbc.execute("drop index" + concurrently + " if exists " + HISTORY_INDEX);
+            jdbc.execute("alter index " + REBUILD_INDEX + " rename to " + HISTORY_INDEX);
+        }
+
+        jdbc.execute("drop index" + concurrently + " if exists idx_emission_logs_user_time_id");
+        jdbc.execute("drop index" + concurrently + " if exists idx_emission_logs_user_time");
+    }
+
+    private void build(String name, String concurrently) {
+        jdbc.execute("create index" + concurrently + " " + name + " on emission_logs " + HISTORY_INDEX_COLUMNS);
+        if (!Boolean.TRUE.equals(valid(name))) {
+            throw new IllegalStateException("Index " + name + " was not built valid; it is rebuilt on the next start");
+        }
+    }
+
+    private void dropIfInvalid(String name, String concurrently) {
+        if (Boolean.FALSE.equals(valid(name))) {
+            log.warn("Dropping invalid index {} left by an interrupted build", name);
+            jdbc.execute("drop index" + concurrently + " if exists " + name);
+        }
+    }
+
+    // null when the index does not exist.
+    private Boolean valid(String name) {
+        var valid = jdbc.queryForList(
+                "select i.indisvalid from pg_index i where i.indexrelid = to_regclass(?)", Boolean.class, name);
+        return valid.isEmpty() ? null : valid.get(0);
+    }
+
+    private boolean current(String name) {
+        var definition = definition(name);
+        return definition != null && definition.endsWith(HISTORY_INDEX_COLUMNS);
+    }
+
+    // Column part of the definition, e.g. "(user_id, created_at, id) include (...)"; null when missing.
+    private String definition(String name) {
+        var definition = jdbc.queryForList("select pg_get_indexdef(to_regclass(?))", String.class, name);
+        if (definition.isEmpty() || definition.get(0) == null) return null;
+        var sql = definition.get(0).toLowerCase(Locale.ROOT);
+        var columns = sql.indexOf(" using btree ");
+        return columns < 0 ? sql : sql.substring(columns + " using btree ".length());
+    }
+}
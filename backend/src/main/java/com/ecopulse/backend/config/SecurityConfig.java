@@ -59,8 +59,8 @@ public class SecurityConfig {
             "https://*.githubpreview.dev"
         ));
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        config.setAllowedHeaders(List.of("Authorization", "Content-Type", "X-Requested-With"));
-        config.setExposedHeaders(List.of("Authorization"));
+        config.setAllowedHeaders(List.of("Authorization", "Content-Type", "X-Requested-With", "Idempotency-Key"));
+        config.setExposedHeaders(List.of("Authorization", "Idempotent-Replayed"));
         config.setAllowCredentials(true);
 
         var source = new UrlBasedCorsConfigurationSource();
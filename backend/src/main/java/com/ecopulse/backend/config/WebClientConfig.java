@@ -8,15 +8,29 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class WebClientConfig {
+    // The ai-engine is the only downstream this builder serves, so its pool is sized for it.
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider aiEngineConnectionProvider(BackendProperties properties) {
+        var pool = properties.aiEngine().pool();
+        return ConnectionProvider.builder("ai-engine")
+                .maxConnections(pool.maxConnections())
+                .pendingAcquireMaxCount(pool.pendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.pendingAcquireTimeout())
+                .maxIdleTime(pool.maxIdleTime())
+                .metrics(true)
+                .build();
+    }
+
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        var httpClient = HttpClient.create()
+    public WebClient.Builder webClientBuilder(ConnectionProvider aiEngineConnectionProvider) {
+        var httpClient = HttpClient.create(aiEngineConnectionProvider)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 2000)
                 .responseTimeout(Duration.ofSeconds(4))
                 .doOnConnected(conn -> conn
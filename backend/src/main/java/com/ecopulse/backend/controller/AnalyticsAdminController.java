@@ -0,0 +1,51 @@
+package com.ecopulse.backend.controller;
+
+import com.ecopulse.backend.service.analytics.ColumnarEmissionStore;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+
+// Platform-wide aggregates across all users, served from the in-memory ColumnarEmissionStore.
+@RestController
+@RequestMapping("/api/admin/analytics")
+@PreAuthorize("hasRole('ADMIN')")
+public class AnalyticsAdminController {
+    private final ColumnarEmissionStore store;
+
+    public AnalyticsAdminController(ColumnarEmissionStore store) {
+        this.store = store;
+    }
+
+    @GetMapping("/emissions")
+    public ResponseEntity<?> emissions(
+            @RequestParam(defaultValue = "model") String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) String region
+    ) {
+        if (!store.enabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "analytics_disabled", "message", "Set ecopulse.analytics.enabled to serve admin analytics"));
+        }
+        ColumnarEmissionStore.GroupBy grouping;
+        try {
+            grouping = ColumnarEmissionStore.GroupBy.valueOf(groupBy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("groupBy must be one of model, region, all");
+        }
+        if (from != null && to != null && from.isAfter(to)) throw new IllegalArgumentException("from must not be after to");
+        return ResponseEntity.ok(store.aggregate(from, to, model, region, grouping));
+    }
+
+    @GetMapping("/stats")
+    public ColumnarEmissionStore.Stats stats() {
+        return store.stats();
+    }
+}
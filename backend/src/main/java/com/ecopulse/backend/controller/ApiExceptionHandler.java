@@ -1,5 +1,9 @@
 package com.ecopulse.backend.controller;
 
+import com.ecopulse.backend.service.budget.BudgetExceededException;
+import com.ecopulse.backend.service.ingest.IdempotencyConflictException;
+import com.ecopulse.backend.service.ingest.IngestQueueFullException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -18,6 +22,25 @@ public class ApiExceptionHandler {
                 .body(Map.of("error", "bad_request", "message", ex.getMessage()));
     }
 
+    @ExceptionHandler(IngestQueueFullException.class)
+    public ResponseEntity<?> ingestQueueFull(IngestQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "ingest_queue_full", "message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(BudgetExceededException.class)
+    public ResponseEntity<?> budgetExceeded(BudgetExceededException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "budget_exceeded", "message", ex.getMessage(), "budgetId", ex.getBudgetId().toString()));
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<?> idempotencyConflict(IdempotencyConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "idempotency_conflict", "message", ex.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<?> validation(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
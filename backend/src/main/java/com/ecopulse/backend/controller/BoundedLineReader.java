@@ -0,0 +1,74 @@
+package com.ecopulse.backend.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Reads newline-delimited records as raw UTF-8 bytes into one reusable buffer of at most maxLineBytes. A longer
+// line is skipped up to its newline and reported as oversized, so memory stays flat whatever the body holds.
+final class BoundedLineReader {
+    private final InputStream in;
+    private final byte[] line;
+    private final byte[] chunk = new byte[8192];
+    private int chunkPos;
+    private int chunkLen;
+    private int length;
+    private boolean oversized;
+
+    BoundedLineReader(InputStream in, int maxLineBytes) {
+        this.in = in;
+        this.line = new byte[maxLineBytes];
+    }
+
+    // Advances to the next line; false at end of input.
+    boolean next() throws IOException {
+        length = 0;
+        oversized = false;
+        var sawAny = false;
+        while (true) {
+            if (chunkPos == chunkLen) {
+                chunkLen = in.read(chunk);
+                chunkPos = 0;
+                if (chunkLen <= 0) {
+                    chunkLen = 0;
+                    return sawAny;
+                }
+            }
+            sawAny = true;
+            var newline = -1;
+            for (int i = chunkPos; i < chunkLen; i++) {
+                if (chunk[i] == '\n') {
+                    newline = i;
+                    break;
+                }
+            }
+            var end = newline < 0 ? chunkLen : newline;
+            var copy = Math.min(end - chunkPos, line.length - length);
+            System.arraycopy(chunk, chunkPos, line, length, copy);
+            length += copy;
+            if (copy < end - chunkPos) oversized = true;
+            chunkPos = newline < 0 ? chunkLen : newline + 1;
+            if (newline >= 0) break;
+        }
+        if (length > 0 && line[length - 1] == '\r') length--;
+        return true;
+    }
+
+    byte[] buffer() {
+        return line;
+    }
+
+    int length() {
+        return length;
+    }
+
+    boolean oversized() {
+        return oversized;
+    }
+
+    boolean blank() {
+        for (int i = 0; i < length; i++) {
+            if (!Character.isWhitespace(line[i])) return false;
+        }
+        return true;
+    }
+}
@@ -5,6 +5,8 @@ import com.ecopulse.backend.repository.UserRepository;
 import com.ecopulse.backend.service.BudgetService;
 import com.ecopulse.backend.service.security.SecurityUserDetails;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -32,7 +34,11 @@ public class CarbonBudgetController {
     public BudgetView create(@AuthenticationPrincipal Object principal, @Valid @RequestBody CreateRequest request) {
         var user = userRepository.findById(((SecurityUserDetails) principal).id()).orElseThrow();
         var budget = budgetService.create(user, new BudgetService.CreateBudgetRequest(
-                request.periodStart(), request.periodEnd(), request.co2GramsLimit()
+                request.periodStart(),
+                request.periodEnd(),
+                request.co2GramsLimit(),
+                request.alertThresholdPercent(),
+                Boolean.TRUE.equals(request.hardCap())
         ));
         return BudgetView.from(budget);
     }
@@ -52,12 +58,28 @@ public class CarbonBudgetController {
     public record CreateRequest(
             @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant periodStart,
             @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant periodEnd,
-            @NotNull BigDecimal co2GramsLimit
+            @NotNull BigDecimal co2GramsLimit,
+            @Min(1) @Max(1000) Integer alertThresholdPercent,
+            Boolean hardCap
     ) {}
 
-    public record BudgetView(String id, Instant periodStart, Instant periodEnd, BigDecimal co2GramsLimit) {
+    public record BudgetView(
+            String id,
+            Instant periodStart,
+            Instant periodEnd,
+            BigDecimal co2GramsLimit,
+            Integer alertThresholdPercent,
+            boolean hardCap
+    ) {
         static BudgetView from(CarbonBudget b) {
-            return new BudgetView(b.getId().toString(), b.getPeriodStart(), b.getPeriodEnd(), b.getCo2GramsLimit());
+            return new BudgetView(
+                    b.getId().toString(),
+                    b.getPeriodStart(),
+                    b.getPeriodEnd(),
+                    b.getCo2GramsLimit(),
+                    b.getAlertThresholdPercent(),
+                    b.isHardCap()
+            );
         }
     }
 }
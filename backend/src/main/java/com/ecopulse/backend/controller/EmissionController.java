@@ -1,52 +1,221 @@
 package com.ecopulse.backend.controller;
 
 import com.ecopulse.backend.model.EmissionLog;
+import com.ecopulse.backend.model.User;
+import com.ecopulse.backend.repository.EmissionRow;
 import com.ecopulse.backend.repository.UserRepository;
 import com.ecopulse.backend.service.EmissionService;
+import com.ecopulse.backend.service.budget.BudgetExceededException;
+import com.ecopulse.backend.service.ingest.IdempotencyConflictException;
+import com.ecopulse.backend.service.rollup.BreakdownService;
 import com.ecopulse.backend.service.security.SecurityUserDetails;
+import com.ecopulse.backend.service.sketch.EmissionSketchService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/emissions")
 public class EmissionController {
+    private static final int MAX_BATCH_ITEMS = 1000;
+    private static final int STREAM_CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_LINE_ERRORS = 100;
+    private static final int MAX_STREAM_LINE_BYTES = 64 * 1024;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 128;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final String ORIGINAL_MISSING = "Idempotency key was already used; the original emission log no longer exists";
+
     private final EmissionService emissionService;
     private final UserRepository userRepository;
+    private final Validator validator;
+    private final ObjectReader requestReader;
+    private final ObjectWriter rowWriter;
+    private final BreakdownService breakdownService;
+    private final EmissionSketchService sketchService;
 
-    public EmissionController(EmissionService emissionService, UserRepository userRepository) {
+    public EmissionController(
+            EmissionService emissionService,
+            UserRepository userRepository,
+            Validator validator,
+            ObjectMapper objectMapper,
+            BreakdownService breakdownService,
+            EmissionSketchService sketchService
+    ) {
         this.emissionService = emissionService;
         this.userRepository = userRepository;
+        this.validator = validator;
+        this.requestReader = objectMapper.readerFor(CreateEmissionRequest.class);
+        // Leaves the response stream open between rows.
+        this.rowWriter = objectMapper.writerFor(BreakdownService.Row.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.breakdownService = breakdownService;
+        this.sketchService = sketchService;
     }
 
     @PostMapping("/calculate")
-    @ResponseStatus(HttpStatus.CREATED)
-    public EmissionView calculateAndLog(
+    public ResponseEntity<EmissionView> calculateAndLog(
+            @AuthenticationPrincipal Object principal,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody CreateEmissionRequest request
+    ) {
+        var user = userRepository.findById(((SecurityUserDetails) principal).id()).orElseThrow();
+        var recorded = emissionService.createLog(user, request.toServiceRequest(idempotencyKey));
+        if (recorded.originalMissing()) throw new IdempotencyConflictException(ORIGINAL_MISSING);
+        // A replayed key returns the original log instead of creating a second one.
+        if (recorded.duplicate()) {
+            return ResponseEntity.ok().header(IDEMPOTENT_REPLAYED_HEADER, "true").body(EmissionView.from(recorded.log()));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(EmissionView.from(recorded.log()));
+    }
+
+    @PostMapping("/ingest")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public IngestAck ingest(
             @AuthenticationPrincipal Object principal,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody CreateEmissionRequest request
     ) {
         var user = userRepository.findById(((SecurityUserDetails) principal).id()).orElseThrow();
-        var saved = emissionService.createLog(user, new EmissionService.CreateEmissionRequest(
-                request.model(),
-                request.region(),
-                request.tokens(),
-                request.runtimeSeconds(),
-                request.modelPowerFactor(),
-                request.regionCarbonIntensity(),
-                request.waterFactor()
-        ));
-        return EmissionView.from(saved);
+        var submission = emissionService.submit(user, request.toServiceRequest(idempotencyKey));
+        var status = submission.duplicate() ? "duplicate" : submission.queued() ? "queued" : "stored";
+        return new IngestAck(submission.id().toString(), status);
+    }
+
+    @PostMapping("/batch")
+    public BatchResponse batch(
+            @AuthenticationPrincipal Object principal,
+            @Valid @RequestBody BatchRequest request
+    ) {
+        var user = userRepository.findById(((SecurityUserDetails) principal).id()).orElseThrow();
+
+        // Items are validated one by one so a single bad record does not reject the whole batch.
+        var results = new BatchItemResult[request.items().size()];
+        var acceptedIndexes = new ArrayList<Integer>();
+        var accepted = new ArrayList<EmissionService.CreateEmissionRequest>();
+        for (int i = 0; i < request.items().size(); i++) {
+            var item = request.items().get(i);
+            var errors = validate(item);
+            if (errors.isEmpty()) {
+                acceptedIndexes.add(i);
+                accepted.add(item.toServiceRequest());
+            } else {
+                results[i] = BatchItemResult.rejected(i, errors);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            var saved = emissionService.createBatch(user, accepted);
+            for (int i = 0; i < saved.size(); i++) {
+                int index = acceptedIndexes.get(i);
+                var recorded = saved.get(i);
+                if (recorded.originalMissing()) {
+                    results[index] = BatchItemResult.conflict(index, Map.of("idempotencyKey", ORIGINAL_MISSING));
+                } else {
+                    results[index] = recorded.duplicate()
+                            ? BatchItemResult.duplicate(index, EmissionView.from(recorded.log()))
+                            : BatchItemResult.created(index, EmissionView.from(recorded.log()));
+                }
+            }
+        }
+
+        return new BatchResponse(accepted.size(), results.length - accepted.size(), List.of(results));
+    }
+
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamSummary stream(@AuthenticationPrincipal Object principal, InputStream body) throws IOException {
+        var user = userRepository.findById(((SecurityUserDetails) principal).id()).orElseThrow();
+
+        // One record per line, parsed straight from a bounded byte buffer as it arrives and flushed in fixed-size
+        // chunks, so heap use is bounded by the line limit and chunk size rather than the upload size. Each chunk
+        // commits on its own.
+        var chunk = new ArrayList<EmissionService.CreateEmissionRequest>(STREAM_CHUNK_SIZE);
+        var chunkLines = new ArrayList<Long>(STREAM_CHUNK_SIZE);
+        var tally = new StreamTally();
+
+        try (body) {
+            var reader = new BoundedLineReader(body, MAX_STREAM_LINE_BYTES);
+            while (reader.next()) {
+                tally.lines++;
+                if (reader.blank()) continue;
+
+                Map<String, String> lineErrors;
+                CreateEmissionRequest item = null;
+                if (reader.oversized()) {
+                    lineErrors = Map.of("line", "longer than " + MAX_STREAM_LINE_BYTES + " bytes");
+                } else {
+                    try {
+                        item = requestReader.readValue(reader.buffer(), 0, reader.length());
+                        lineErrors = validate(item);
+                    } catch (JsonProcessingException e) {
+                        lineErrors = Map.of("line", "malformed JSON: " + e.getOriginalMessage());
+                    }
+                }
+
+                if (!lineErrors.isEmpty()) {
+                    tally.reject(tally.lines, lineErrors);
+                    continue;
+                }
+
+                chunk.add(item.toServiceRequest());
+                chunkLines.add(tally.lines);
+                if (chunk.size() == STREAM_CHUNK_SIZE) flush(user, chunk, chunkLines, tally);
+            }
+        }
+
+        if (!chunk.isEmpty()) flush(user, chunk, chunkLines, tally);
+        return new StreamSummary(tally.lines, tally.accepted, tally.duplicates, tally.rejected, tally.errors);
+    }
+
+    // Earlier chunks are already committed, so a chunk refused by a hard-capped budget is reported per line and
+    // the stream carries on rather than failing the request and losing the summary.
+    private void flush(User user, List<EmissionService.CreateEmissionRequest> chunk, List<Long> chunkLines, StreamTally tally) {
+        try {
+            var saved = emissionService.createBatch(user, chunk);
+            for (int i = 0; i < saved.size(); i++) {
+                var recorded = saved.get(i);
+                if (recorded.originalMissing()) {
+                    tally.reject(chunkLines.get(i), Map.of("idempotencyKey", ORIGINAL_MISSING));
+                } else if (recorded.duplicate()) {
+                    tally.duplicates++;
+                } else {
+                    tally.accepted++;
+                }
+            }
+        } catch (BudgetExceededException e) {
+            for (var line : chunkLines) tally.reject(line, Map.of("budget", e.getMessage()));
+        }
+        chunk.clear();
+        chunkLines.clear();
     }
 
     @GetMapping("/history")
@@ -60,6 +229,79 @@ public class EmissionController {
                 .map(EmissionView::from);
     }
 
+    // Keyset variant of /history, selected by the limit parameter: no total count, constant cost per page.
+    @GetMapping(value = "/history", params = "limit")
+    public CursorPage history(
+            @AuthenticationPrincipal Object principal,
+            @RequestParam(required = false) String after,
+            @RequestParam int limit
+    ) {
+        var userId = ((SecurityUserDetails) principal).id();
+        var cursor = after == null || after.isBlank() ? null : EmissionService.HistoryCursor.decode(after);
+        var slice = emissionService.historyAfter(userId, cursor, Math.max(1, Math.min(100, limit)));
+        return new CursorPage(
+                slice.items().stream().map(EmissionView::from).toList(),
+                slice.next() == null ? null : slice.next().encode()
+        );
+    }
+
+    @GetMapping(value = "/breakdown", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Breakdown breakdown(
+            @AuthenticationPrincipal Object principal,
+            @RequestParam String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) Integer top
+    ) {
+        var userId = ((SecurityUserDetails) principal).id();
+        var grouping = parseGroupBy(groupBy, top);
+        var rows = new ArrayList<BreakdownService.Row>();
+        breakdownService.breakdown(userId, grouping, from, to, top, rows::add);
+        return new Breakdown(grouping.name().toLowerCase(Locale.ROOT), rows);
+    }
+
+    // NDJSON variant: one row per line, written as each bucket is completed.
+    @GetMapping(value = "/breakdown", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> breakdownStream(
+            @AuthenticationPrincipal Object principal,
+            @RequestParam String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) Integer top
+    ) {
+        var userId = ((SecurityUserDetails) principal).id();
+        var grouping = parseGroupBy(groupBy, top);
+        StreamingResponseBody body = out -> breakdownService.breakdown(userId, grouping, from, to, top, row -> {
+            try {
+                rowWriter.writeValue(out, row);
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Grams CO2 per 1k tokens; histogram=true adds the merged bucket counts. model_region keys are "model|region".
+    @GetMapping("/percentiles")
+    public List<EmissionSketchService.Distribution> percentiles(
+            @AuthenticationPrincipal Object principal,
+            @RequestParam(defaultValue = "model") String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "false") boolean histogram
+    ) {
+        var userId = ((SecurityUserDetails) principal).id();
+        EmissionSketchService.GroupBy grouping;
+        try {
+            grouping = EmissionSketchService.GroupBy.valueOf(groupBy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("groupBy must be one of model, region, model_region, all");
+        }
+        return sketchService.distributions(userId, grouping, from, to, histogram);
+    }
+
+    // Closed bounds are widened to whole minutes (hours beyond a day) so repeated sliding windows hit the cache.
     @GetMapping("/summary")
     public EmissionService.Summary summary(
             @AuthenticationPrincipal Object principal,
@@ -70,6 +312,29 @@ public class EmissionController {
         return emissionService.summary(userId, from, to);
     }
 
+    private static BreakdownService.GroupBy parseGroupBy(String groupBy, Integer top) {
+        BreakdownService.GroupBy grouping;
+        try {
+            grouping = BreakdownService.GroupBy.valueOf(groupBy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("groupBy must be one of model, region, day, hour");
+        }
+        if (top != null && top < 1) throw new IllegalArgumentException("top must be at least 1");
+        if (top != null && (grouping == BreakdownService.GroupBy.DAY || grouping == BreakdownService.GroupBy.HOUR)) {
+            throw new IllegalArgumentException("top applies to model and region grouping only");
+        }
+        return grouping;
+    }
+
+    private Map<String, String> validate(CreateEmissionRequest item) {
+        if (item == null) return Map.of("item", "must not be null");
+        Map<String, String> errors = new HashMap<>();
+        for (var violation : validator.validate(item)) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
+    }
+
     public record CreateEmissionRequest(
             @NotBlank String model,
             @NotBlank String region,
@@ -77,8 +342,77 @@ public class EmissionController {
             @Positive double runtimeSeconds,
             @NotNull BigDecimal modelPowerFactor,
             BigDecimal regionCarbonIntensity,
-            BigDecimal waterFactor
-    ) {}
+            BigDecimal waterFactor,
+            @Size(max = MAX_IDEMPOTENCY_KEY_LENGTH) String idempotencyKey
+    ) {
+        EmissionService.CreateEmissionRequest toServiceRequest() {
+            return toServiceRequest(null);
+        }
+
+        // The Idempotency-Key header, when present, takes precedence over the body field.
+        EmissionService.CreateEmissionRequest toServiceRequest(String headerIdempotencyKey) {
+            var key = headerIdempotencyKey != null ? headerIdempotencyKey : idempotencyKey;
+            if (key != null && (key.isBlank() || key.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+                throw new IllegalArgumentException("Idempotency key must be 1-" + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+            }
+            return new EmissionService.CreateEmissionRequest(
+                    model,
+                    region,
+                    tokens,
+                    runtimeSeconds,
+                    modelPowerFactor,
+                    regionCarbonIntensity,
+                    waterFactor,
+                    key
+            );
+        }
+    }
+
+    public record Breakdown(String groupBy, List<BreakdownService.Row> rows) {}
+
+    public record CursorPage(List<EmissionView> items, String nextCursor) {}
+
+    // duplicates are lines whose idempotency key was already recorded; they are neither accepted nor rejected.
+    public record StreamSummary(long lines, long accepted, long duplicates, long rejected, List<LineError> errors) {}
+
+    private static final class StreamTally {
+        long lines;
+        long accepted;
+        long duplicates;
+        long rejected;
+        final List<LineError> errors = new ArrayList<>();
+
+        void reject(long line, Map<String, String> lineErrors) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_LINE_ERRORS) errors.add(new LineError(line, lineErrors));
+        }
+    }
+
+    public record LineError(long line, Map<String, String> errors) {}
+
+    public record IngestAck(String id, String status) {}
+
+    public record BatchRequest(@NotEmpty @Size(max = MAX_BATCH_ITEMS) List<CreateEmissionRequest> items) {}
+
+    public record BatchResponse(int accepted, int rejected, List<BatchItemResult> results) {}
+
+    public record BatchItemResult(int index, String status, EmissionView emission, Map<String, String> errors) {
+        static BatchItemResult created(int index, EmissionView emission) {
+            return new BatchItemResult(index, "created", emission, null);
+        }
+
+        static BatchItemResult duplicate(int index, EmissionView emission) {
+            return new BatchItemResult(index, "duplicate", emission, null);
+        }
+
+        static BatchItemResult rejected(int index, Map<String, String> errors) {
+            return new BatchItemResult(index, "rejected", null, errors);
+        }
+
+        static BatchItemResult conflict(int index, Map<String, String> errors) {
+            return new BatchItemResult(index, "conflict", null, errors);
+        }
+    }
 
     public record EmissionView(
             String id,
@@ -92,6 +426,21 @@ public class EmissionController {
             BigDecimal waterLiters,
             int greenScore
     ) {
+        static EmissionView from(EmissionRow row) {
+            return new EmissionView(
+                    row.id().toString(),
+                    row.createdAt(),
+                    row.model(),
+                    row.region(),
+                    row.tokens(),
+                    row.runtimeSeconds(),
+                    row.energyKwh(),
+                    row.co2Grams(),
+                    row.waterLiters(),
+                    row.greenScore()
+            );
+        }
+
         static EmissionView from(EmissionLog log) {
             return new EmissionView(
                     log.getId().toString(),
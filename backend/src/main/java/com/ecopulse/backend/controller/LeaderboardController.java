@@ -0,0 +1,37 @@
+package com.ecopulse.backend.controller;
+
+import com.ecopulse.backend.service.leaderboard.LeaderboardService;
+import com.ecopulse.backend.service.security.SecurityUserDetails;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/leaderboard")
+public class LeaderboardController {
+    private static final int MAX_LIMIT = 100;
+
+    private final LeaderboardService leaderboardService;
+
+    public LeaderboardController(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+
+    @GetMapping
+    public LeaderboardService.Leaderboard get(
+            @AuthenticationPrincipal Object principal,
+            @RequestParam(defaultValue = "weekly") String period,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        var userId = ((SecurityUserDetails) principal).id();
+        if (limit < 1 || limit > MAX_LIMIT) throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        LeaderboardService.Period window;
+        try {
+            window = LeaderboardService.Period.valueOf(period.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("period must be one of daily, weekly, monthly");
+        }
+        return leaderboardService.leaderboard(window, userId, limit);
+    }
+}
@@ -0,0 +1,33 @@
+package com.ecopulse.backend.controller;
+
+import com.ecopulse.backend.service.partition.EmissionPartitionManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/partitions")
+@PreAuthorize("hasRole('ADMIN')")
+public class PartitionAdminController {
+    private final EmissionPartitionManager partitionManager;
+
+    public PartitionAdminController(EmissionPartitionManager partitionManager) {
+        this.partitionManager = partitionManager;
+    }
+
+    @GetMapping
+    public PartitionStatus status() {
+        return new PartitionStatus(partitionManager.isPartitioned(), partitionManager.migrationStatus());
+    }
+
+    // Online migration of an existing emission_logs table; poll GET for progress. 409 when it is already
+    // running or the table is already partitioned.
+    @PostMapping("/migrate")
+    public ResponseEntity<PartitionStatus> migrate() {
+        var started = partitionManager.startMigration();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(status());
+    }
+
+    public record PartitionStatus(boolean partitioned, String migrationStatus) {}
+}
@@ -0,0 +1,41 @@
+package com.ecopulse.backend.controller;
+
+import com.ecopulse.backend.service.rollup.EmissionRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+// Rebuild/backfill and consistency tooling for emission_rollups. Ranges are widened to whole UTC days.
+@RestController
+@RequestMapping("/api/admin/rollups")
+@PreAuthorize("hasRole('ADMIN')")
+public class RollupAdminController {
+    private final EmissionRollupService rollupService;
+
+    public RollupAdminController(EmissionRollupService rollupService) {
+        this.rollupService = rollupService;
+    }
+
+    @PostMapping("/rebuild")
+    public RebuildResult rebuild(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to
+    ) {
+        if (!from.isBefore(to)) throw new IllegalArgumentException("from must be before to");
+        return new RebuildResult(rollupService.rebuild(from, to));
+    }
+
+    @GetMapping("/check")
+    public List<EmissionRollupService.Mismatch> check(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to
+    ) {
+        if (!from.isBefore(to)) throw new IllegalArgumentException("from must be before to");
+        return rollupService.check(from, to);
+    }
+
+    public record RebuildResult(int rows) {}
+}
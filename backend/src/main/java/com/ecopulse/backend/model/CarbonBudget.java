@@ -1,6 +1,7 @@
 package com.ecopulse.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -32,6 +33,20 @@ public class CarbonBudget {
     @Column(name = "co2_grams_used", nullable = false, precision = 18, scale = 8)
     private BigDecimal co2GramsUsed = BigDecimal.ZERO;
 
+    // Extra alert level on top of the fixed 80% and 100% ones; null when not set.
+    @Column(name = "alert_threshold_percent")
+    private Integer alertThresholdPercent;
+
+    // Reject ingest that would push usage past the limit instead of only alerting.
+    @ColumnDefault("false")
+    @Column(name = "hard_cap", nullable = false)
+    private boolean hardCap;
+
+    // Alert thresholds already reported by any instance, one bit per entry of the budget's sorted threshold
+    // levels. Null until an instance first loads the budget; see BudgetIndex.
+    @Column(name = "fired_thresholds")
+    private Integer firedThresholds;
+
     protected CarbonBudget() {}
 
     public CarbonBudget(User user, Instant periodStart, Instant periodEnd, BigDecimal co2GramsLimit) {
@@ -47,6 +62,11 @@ public class CarbonBudget {
     public Instant getPeriodEnd() { return periodEnd; }
     public BigDecimal getCo2GramsLimit() { return co2GramsLimit; }
     public BigDecimal getCo2GramsUsed() { return co2GramsUsed; }
+    public Integer getAlertThresholdPercent() { return alertThresholdPercent; }
+    public boolean isHardCap() { return hardCap; }
+    public Integer getFiredThresholds() { return firedThresholds; }
 
     public void setCo2GramsUsed(BigDecimal co2GramsUsed) { this.co2GramsUsed = co2GramsUsed; }
+    public void setAlertThresholdPercent(Integer alertThresholdPercent) { this.alertThresholdPercent = alertThresholdPercent; }
+    public void setHardCap(boolean hardCap) { this.hardCap = hardCap; }
 }
@@ -1,19 +1,29 @@
 package com.ecopulse.backend.model;
 
+import com.ecopulse.backend.model.id.TimeOrderedUuid;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "emission_logs", indexes = {
-        @Index(name = "idx_emission_logs_user_time", columnList = "user_id,created_at")
-})
-public class EmissionLog {
+// The (user_id, created_at, id) covering index is created by EmissionIndexInitializer.
+@Table(name = "emission_logs")
+public class EmissionLog implements Persistable<UUID> {
+    // Assigned up front so asynchronous ingest can acknowledge the id before the row is written. Time-ordered
+    // so inserts append to the primary key index.
     @Id
-    @GeneratedValue
-    private UUID id;
+    private UUID id = TimeOrderedUuid.next();
+
+    @Transient
+    private boolean isNew = true;
+
+    // Carried to EmissionWriter so the key is recorded in the same transaction as the log.
+    @Transient
+    private String idempotencyKey;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
@@ -22,6 +32,12 @@ public class EmissionLog {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
 
+    // Stamped by EmissionWriter on each write attempt, so it follows commit order even when createdAt (stamped at
+    // submit) is hours old after an outage. Rows written before the column existed take its default.
+    @ColumnDefault("now()")
+    @Column(name = "written_at")
+    private Instant writtenAt;
+
     @Column(nullable = false, length = 120)
     private String model;
 
@@ -61,9 +77,25 @@ public class EmissionLog {
         this.user = user;
     }
 
+    // Restores an acknowledged log that was spilled to the ingest dead-letter file before it could be written.
+    public EmissionLog(User user, UUID id, Instant createdAt) {
+        this.user = user;
+        this.id = id;
+        this.createdAt = createdAt;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() { this.isNew = false; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @Override
     public UUID getId() { return id; }
     public User getUser() { return user; }
     public Instant getCreatedAt() { return createdAt; }
+    public Instant getWrittenAt() { return writtenAt; }
     public String getModel() { return model; }
     public String getRegion() { return region; }
     public long getTokens() { return tokens; }
@@ -75,7 +107,9 @@ public class EmissionLog {
     public BigDecimal getCo2Grams() { return co2Grams; }
     public BigDecimal getWaterLiters() { return waterLiters; }
     public int getGreenScore() { return greenScore; }
+    public String getIdempotencyKey() { return idempotencyKey; }
 
+    public void markWritten(Instant writtenAt) { this.writtenAt = writtenAt; }
     public void setModel(String model) { this.model = model; }
     public void setRegion(String region) { this.region = region; }
     public void setTokens(long tokens) { this.tokens = tokens; }
@@ -87,4 +121,5 @@ public class EmissionLog {
     public void setCo2Grams(BigDecimal co2Grams) { this.co2Grams = co2Grams; }
     public void setWaterLiters(BigDecimal waterLiters) { this.waterLiters = waterLiters; }
     public void setGreenScore(int greenScore) { this.greenScore = greenScore; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
 }
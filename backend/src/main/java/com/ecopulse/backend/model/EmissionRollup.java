@@ -0,0 +1,71 @@
+package com.ecopulse.backend.model;
+
+import com.ecopulse.backend.model.id.TimeOrderedId;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+// Pre-aggregated emission_logs per (user, model, region, UTC hour/day bucket). Rows are only ever incremented
+// by EmissionRollupService (same transaction as the log write) or replaced by a rebuild.
+@Entity
+@Table(name = "emission_rollups", indexes = {
+        @Index(name = "idx_emission_rollups_bucket", columnList = "user_id,granularity,bucket_start,model,region", unique = true)
+})
+public class EmissionRollup {
+    public enum Granularity { HOUR, DAY }
+
+    @Id
+    @TimeOrderedId
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    @Column(nullable = false, length = 120)
+    private String model;
+
+    @Column(nullable = false, length = 80)
+    private String region;
+
+    @Column(nullable = false)
+    private long entries;
+
+    @Column(nullable = false)
+    private long tokens;
+
+    @Column(name = "energy_kwh", nullable = false, precision = 24, scale = 8)
+    private BigDecimal energyKwh;
+
+    @Column(name = "co2grams", nullable = false, precision = 24, scale = 8)
+    private BigDecimal co2Grams;
+
+    @Column(name = "water_liters", nullable = false, precision = 24, scale = 8)
+    private BigDecimal waterLiters;
+
+    @Column(name = "green_score_sum", nullable = false)
+    private long greenScoreSum;
+
+    protected EmissionRollup() {}
+
+    public UUID getId() { return id; }
+    public UUID getUserId() { return userId; }
+    public Granularity getGranularity() { return granularity; }
+    public Instant getBucketStart() { return bucketStart; }
+    public String getModel() { return model; }
+    public String getRegion() { return region; }
+    public long getEntries() { return entries; }
+    public long getTokens() { return tokens; }
+    public BigDecimal getEnergyKwh() { return energyKwh; }
+    public BigDecimal getCo2Grams() { return co2Grams; }
+    public BigDecimal getWaterLiters() { return waterLiters; }
+    public long getGreenScoreSum() { return greenScoreSum; }
+}
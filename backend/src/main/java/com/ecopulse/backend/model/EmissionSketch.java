@@ -0,0 +1,52 @@
+package com.ecopulse.backend.model;
+
+import com.ecopulse.backend.model.id.TimeOrderedId;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Serialized LogHistogram of grams CO2 per 1k tokens per (user, model, region, UTC day). Updated under a row
+// lock by EmissionSketchService in the same transaction as the log write.
+@Entity
+@Table(name = "emission_sketches", indexes = {
+        @Index(name = "idx_emission_sketches_day", columnList = "user_id,day_start,model,region", unique = true)
+})
+public class EmissionSketch {
+    @Id
+    @TimeOrderedId
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "day_start", nullable = false)
+    private Instant dayStart;
+
+    @Column(nullable = false, length = 120)
+    private String model;
+
+    @Column(nullable = false, length = 80)
+    private String region;
+
+    @Column(nullable = false)
+    private long entries;
+
+    @Column(nullable = false)
+    private byte[] sketch;
+
+    protected EmissionSketch() {}
+
+    public UUID getId() { return id; }
+    public UUID getUserId() { return userId; }
+    public Instant getDayStart() { return dayStart; }
+    public String getModel() { return model; }
+    public String getRegion() { return region; }
+    public long getEntries() { return entries; }
+    public byte[] getSketch() { return sketch; }
+
+    public void setSketch(byte[] sketch, long entries) {
+        this.sketch = sketch;
+        this.entries = entries;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecopulse.backend.model;
 
+import com.ecopulse.backend.model.id.TimeOrderedId;
 import jakarta.persistence.*;
 
 import java.time.Instant;
@@ -11,7 +12,7 @@ import java.util.UUID;
 })
 public class GreenScore {
     @Id
-    @GeneratedValue
+    @TimeOrderedId
     private UUID id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -0,0 +1,49 @@
+package com.ecopulse.backend.model;
+
+import com.ecopulse.backend.model.id.TimeOrderedId;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Client-supplied ingest key -> stored emission log. Kept outside emission_logs so uniqueness does not depend
+// on how that table is laid out, and so keys can expire independently of the records they point to.
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = IdempotencyKey.USER_KEY_INDEX, columnList = "user_id,idempotency_key", unique = true),
+        @Index(name = "idx_idempotency_keys_created", columnList = "created_at")
+})
+public class IdempotencyKey {
+    public static final String USER_KEY_INDEX = "idx_idempotency_keys_user_key";
+
+    @Id
+    @TimeOrderedId
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 128)
+    private String key;
+
+    @Column(name = "emission_log_id", nullable = false)
+    private UUID emissionLogId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    protected IdempotencyKey() {}
+
+    public IdempotencyKey(UUID userId, String key, UUID emissionLogId, Instant createdAt) {
+        this.userId = userId;
+        this.key = key;
+        this.emissionLogId = emissionLogId;
+        this.createdAt = createdAt;
+    }
+
+    public UUID getId() { return id; }
+    public UUID getUserId() { return userId; }
+    public String getKey() { return key; }
+    public UUID getEmissionLogId() { return emissionLogId; }
+    public Instant getCreatedAt() { return createdAt; }
+}
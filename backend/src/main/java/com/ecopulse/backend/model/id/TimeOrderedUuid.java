@@ -0,0 +1,41 @@
+package com.ecopulse.backend.model.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// UUIDv7 (RFC 9562): 48-bit Unix milliseconds, 12-bit sequence in rand_a, 62 random bits in rand_b.
+// Consecutive ids sort by creation time, so inserts append to the right edge of the primary key btree
+// instead of splitting random pages.
+//
+// Timestamp and sequence share one AtomicLong, so ids stay strictly increasing within the JVM without a
+// lock. A sequence overflow within one millisecond carries into the timestamp, running the clock slightly
+// ahead rather than reusing a value; a clock stepping backwards likewise keeps the last issued timestamp.
+public final class TimeOrderedUuid {
+    private static final int SEQUENCE_BITS = 12;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final long RAND_B_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private TimeOrderedUuid() {}
+
+    public static UUID next() {
+        var state = nextState(System.currentTimeMillis());
+        var timestamp = state >>> SEQUENCE_BITS;
+        var sequence = state & ((1L << SEQUENCE_BITS) - 1);
+        var msb = (timestamp << 16) | VERSION_7 | sequence;
+        var lsb = VARIANT | (ThreadLocalRandom.current().nextLong() & RAND_B_MASK);
+        return new UUID(msb, lsb);
+    }
+
+    private static long nextState(long nowMillis) {
+        var floor = nowMillis << SEQUENCE_BITS;
+        while (true) {
+            var last = LAST.get();
+            var next = Math.max(floor, last + 1);
+            if (LAST.compareAndSet(last, next)) return next;
+        }
+    }
+}
@@ -2,10 +2,62 @@ package com.ecopulse.backend.repository;
 
 import com.ecopulse.backend.model.CarbonBudget;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
 public interface CarbonBudgetRepository extends JpaRepository<CarbonBudget, UUID> {
     List<CarbonBudget> findByUserIdOrderByPeriodStartDesc(UUID userId);
+
+    List<CarbonBudget> findByPeriodEndGreaterThanEqual(Instant at);
+
+    @Query("""
+            select b from CarbonBudget b
+            where b.user.id = :userId and b.periodStart <= :to and b.periodEnd >= :from
+            order by b.id
+            """)
+    List<CarbonBudget> findOverlapping(@Param("userId") UUID userId, @Param("from") Instant from, @Param("to") Instant to);
+
+    // Relative update, so concurrent ingest transactions never overwrite each other's usage.
+    @Modifying
+    @Query("update CarbonBudget b set b.co2GramsUsed = b.co2GramsUsed + :delta where b.id = :id")
+    int addUsage(@Param("id") UUID id, @Param("delta") BigDecimal delta);
+
+    // Records the thresholds crossed when a budget is first loaded as already reported. Returns 0 when another
+    // instance got there first.
+    @Modifying
+    @Query(value = "update carbon_budgets set fired_thresholds = :mask where id = :id and fired_thresholds is null", nativeQuery = true)
+    int initFiredThresholds(@Param("id") UUID id, @Param("mask") int mask);
+
+    // Claims one alert threshold; returns 1 for exactly one caller across all instances.
+    @Modifying
+    @Query(value = """
+            update carbon_budgets set fired_thresholds = coalesce(fired_thresholds, 0) | :bit
+            where id = :id and coalesce(fired_thresholds, 0) & :bit = 0
+            """, nativeQuery = true)
+    int claimThreshold(@Param("id") UUID id, @Param("bit") int bit);
+
+    // Repairs usage drift for budgets whose period ended after :since; returns repaired rows. The counter and the
+    // log sum are read from one statement snapshot, where ingest's logs and its addUsage are either both
+    // visible or both not, so their difference is the drift alone. It is applied relative to the row as it
+    // is when locked, which keeps any delta committed while the aggregate ran.
+    @Modifying
+    @Query(value = """
+            update carbon_budgets b set co2_grams_used = b.co2_grams_used + (t.used - t.counted)
+            from (
+                select cb.id, cb.co2_grams_used as counted, coalesce(sum(e.co2grams), 0) as used
+                from carbon_budgets cb
+                left join emission_logs e
+                       on e.user_id = cb.user_id and e.created_at >= cb.period_start and e.created_at <= cb.period_end
+                where cb.period_end >= :since
+                group by cb.id, cb.co2_grams_used
+            ) t
+            where b.id = t.id and t.used <> t.counted
+            """, nativeQuery = true)
+    int reconcileUsage(@Param("since") Instant since);
 }
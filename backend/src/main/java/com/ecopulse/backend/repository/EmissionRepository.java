@@ -1,12 +1,156 @@
 package com.ecopulse.backend.repository;
 
 import com.ecopulse.backend.model.EmissionLog;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 public interface EmissionRepository extends JpaRepository<EmissionLog, UUID> {
-    Page<EmissionLog> findByUserIdOrderByCreatedAtDesc(UUID userId, Pageable pageable);
+    // Open range ends map to bounds outside any stored timestamp, so one query shape serves every range.
+    Instant RANGE_START = Instant.EPOCH;
+    Instant RANGE_END = Instant.parse("9999-12-31T23:59:59Z");
+
+    String ROW_SELECT = """
+            select new com.ecopulse.backend.repository.EmissionRow(
+                e.id, e.createdAt, e.model, e.region, e.tokens, e.runtimeSeconds,
+                e.energyKwh, e.co2Grams, e.waterLiters, e.greenScore)
+            from EmissionLog e
+            """;
+
+    @Query(value = ROW_SELECT + "where e.user.id = :userId order by e.createdAt desc",
+            countQuery = "select count(e) from EmissionLog e where e.user.id = :userId")
+    Page<EmissionRow> findRows(@Param("userId") UUID userId, Pageable pageable);
+
+    @Query(ROW_SELECT + "where e.user.id = :userId order by e.createdAt desc, e.id desc")
+    List<EmissionRow> findFirstRows(@Param("userId") UUID userId, Limit limit);
+
+    // Keyset seek: a row-value comparison on (created_at, id) lets the index jump straight to the cursor,
+    // so every page costs the same regardless of depth.
+    @Query(ROW_SELECT + """
+            where e.user.id = :userId and (e.createdAt, e.id) < (:createdAt, :id)
+            order by e.createdAt desc, e.id desc
+            """)
+    List<EmissionRow> findRowsBefore(
+            @Param("userId") UUID userId,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") UUID id,
+            Limit limit
+    );
+
+    // Platform-wide keyset scan in (written_at, id) order over [cursor, until), for the analytics loader. The
+    // created_at bound keeps rows outside the window out and prunes older partitions.
+    @Query("""
+            select new com.ecopulse.backend.repository.EmissionScanRow(
+                e.id, e.writtenAt, e.createdAt, e.model, e.region, e.tokens,
+                e.energyKwh, e.co2Grams, e.waterLiters, e.greenScore)
+            from EmissionLog e
+            where (e.writtenAt, e.id) > (:writtenAt, :id) and e.writtenAt < :until and e.createdAt >= :createdSince
+            order by e.writtenAt, e.id
+            """)
+    List<EmissionScanRow> findWrittenAfter(
+            @Param("writtenAt") Instant writtenAt,
+            @Param("id") UUID id,
+            @Param("until") Instant until,
+            @Param("createdSince") Instant createdSince,
+            Limit limit
+    );
+
+    @Query(ROW_SELECT + """
+            where e.user.id = :userId and e.createdAt >= :from and e.createdAt <= :to
+            order by e.createdAt desc
+            """)
+    List<EmissionRow> findRowsBetween(
+            @Param("userId") UUID userId,
+            @Param("from") Instant from,
+            @Param("to") Instant to,
+            Limit limit
+    );
+
+    // Summed in the database over the (user_id, created_at) index range; sums are null when no row matches.
+    @Query("""
+            select count(e) as entries,
+                   sum(e.tokens) as tokens,
+                   sum(e.energyKwh) as energyKwh,
+                   sum(e.co2Grams) as co2Grams,
+                   sum(e.waterLiters) as waterLiters
+            from EmissionLog e
+            where e.user.id = :userId and e.createdAt >= :from and e.createdAt <= :to
+            """)
+    Totals totalsBetween(@Param("userId") UUID userId, @Param("from") Instant from, @Param("to") Instant to);
+
+    // Half-open variant for the raw head in front of rollup buckets.
+    @Query("""
+            select count(e) as entries,
+                   sum(e.tokens) as tokens,
+                   sum(e.energyKwh) as energyKwh,
+                   sum(e.co2Grams) as co2Grams,
+                   sum(e.waterLiters) as waterLiters
+            from EmissionLog e
+            where e.user.id = :userId and e.createdAt >= :from and e.createdAt < :until
+            """)
+    Totals totalsFromUntil(@Param("userId") UUID userId, @Param("from") Instant from, @Param("until") Instant until);
+
+    @Query("""
+            select e.model as groupKey, count(e) as entries, sum(e.tokens) as tokens, sum(e.energyKwh) as energyKwh,
+                   sum(e.co2Grams) as co2Grams, sum(e.waterLiters) as waterLiters
+            from EmissionLog e
+            where e.user.id = :userId and e.createdAt >= :from and e.createdAt <= :to
+            group by e.model
+            """)
+    List<GroupTotals> totalsByModel(@Param("userId") UUID userId, @Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("""
+            select e.region as groupKey, count(e) as entries, sum(e.tokens) as tokens, sum(e.energyKwh) as energyKwh,
+                   sum(e.co2Grams) as co2Grams, sum(e.waterLiters) as waterLiters
+            from EmissionLog e
+            where e.user.id = :userId and e.createdAt >= :from and e.createdAt <= :to
+            group by e.region
+            """)
+    List<GroupTotals> totalsByRegion(@Param("userId") UUID userId, @Param("from") Instant from, @Param("to") Instant to);
+
+    // UTC time buckets; unit is a date_trunc unit ('hour', 'day'). Grouping by select-list position because the
+    // bucket expression is parameterised.
+    @Query(value = """
+            select cast(extract(epoch from date_trunc(:unit, created_at at time zone 'UTC')) as bigint) as bucketEpoch,
+                   count(*) as entries, sum(tokens) as tokens, sum(energy_kwh) as energyKwh,
+                   sum(co2grams) as co2Grams, sum(water_liters) as waterLiters
+            from emission_logs
+            where user_id = :userId and created_at >= :from and created_at <= :to
+            group by 1
+            order by 1
+            """, nativeQuery = true)
+    List<EpochBucketTotals> totalsByTimeBucket(
+            @Param("userId") UUID userId,
+            @Param("unit") String unit,
+            @Param("from") Instant from,
+            @Param("to") Instant to
+    );
+
+    default Totals totals(UUID userId, Instant from, Instant to) {
+        return totalsBetween(userId, from == null ? RANGE_START : from, to == null ? RANGE_END : to);
+    }
+
+    interface Totals {
+        long getEntries();
+        Long getTokens();
+        BigDecimal getEnergyKwh();
+        BigDecimal getCo2Grams();
+        BigDecimal getWaterLiters();
+    }
+
+    interface GroupTotals extends Totals {
+        String getGroupKey();
+    }
+
+    interface EpochBucketTotals extends Totals {
+        long getBucketEpoch();
+    }
 }
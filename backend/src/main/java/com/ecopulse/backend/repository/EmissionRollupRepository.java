@@ -0,0 +1,167 @@
+package com.ecopulse.backend.repository;
+
+import com.ecopulse.backend.model.EmissionRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface EmissionRollupRepository extends JpaRepository<EmissionRollup, UUID> {
+    @Modifying
+    @Query(value = """
+            insert into emission_rollups (id, user_id, granularity, bucket_start, model, region,
+                                          entries, tokens, energy_kwh, co2grams, water_liters, green_score_sum)
+            values (:id, :userId, :granularity, :bucketStart, :model, :region,
+                    :entries, :tokens, :energyKwh, :co2Grams, :waterLiters, :greenScoreSum)
+            on conflict (user_id, granularity, bucket_start, model, region) do update set
+                entries = emission_rollups.entries + excluded.entries,
+                tokens = emission_rollups.tokens + excluded.tokens,
+                energy_kwh = emission_rollups.energy_kwh + excluded.energy_kwh,
+                co2grams = emission_rollups.co2grams + excluded.co2grams,
+                water_liters = emission_rollups.water_liters + excluded.water_liters,
+                green_score_sum = emission_rollups.green_score_sum + excluded.green_score_sum
+            """, nativeQuery = true)
+    void increment(
+            @Param("id") UUID id,
+            @Param("userId") UUID userId,
+            @Param("granularity") String granularity,
+            @Param("bucketStart") Instant bucketStart,
+            @Param("model") String model,
+            @Param("region") String region,
+            @Param("entries") long entries,
+            @Param("tokens") long tokens,
+            @Param("energyKwh") BigDecimal energyKwh,
+            @Param("co2Grams") BigDecimal co2Grams,
+            @Param("waterLiters") BigDecimal waterLiters,
+            @Param("greenScoreSum") long greenScoreSum
+    );
+
+    @Query("""
+            select coalesce(sum(r.entries), 0L) as entries,
+                   sum(r.tokens) as tokens,
+                   sum(r.energyKwh) as energyKwh,
+                   sum(r.co2Grams) as co2Grams,
+                   sum(r.waterLiters) as waterLiters
+            from EmissionRollup r
+            where r.userId = :userId and r.granularity = :granularity
+              and r.bucketStart >= :from and r.bucketStart < :until
+            """)
+    EmissionRepository.Totals totals(
+            @Param("userId") UUID userId,
+            @Param("granularity") EmissionRollup.Granularity granularity,
+            @Param("from") Instant from,
+            @Param("until") Instant until
+    );
+
+    @Query("""
+            select r.model as groupKey, sum(r.entries) as entries, sum(r.tokens) as tokens, sum(r.energyKwh) as energyKwh,
+                   sum(r.co2Grams) as co2Grams, sum(r.waterLiters) as waterLiters
+            from EmissionRollup r
+            where r.userId = :userId and r.granularity = :granularity
+              and r.bucketStart >= :from and r.bucketStart < :until
+            group by r.model
+            """)
+    List<EmissionRepository.GroupTotals> totalsByModel(
+            @Param("userId") UUID userId,
+            @Param("granularity") EmissionRollup.Granularity granularity,
+            @Param("from") Instant from,
+            @Param("until") Instant until
+    );
+
+    @Query("""
+            select r.region as groupKey, sum(r.entries) as entries, sum(r.tokens) as tokens, sum(r.energyKwh) as energyKwh,
+                   sum(r.co2Grams) as co2Grams, sum(r.waterLiters) as waterLiters
+            from EmissionRollup r
+            where r.userId = :userId and r.granularity = :granularity
+              and r.bucketStart >= :from and r.bucketStart < :until
+            group by r.region
+            """)
+    List<EmissionRepository.GroupTotals> totalsByRegion(
+            @Param("userId") UUID userId,
+            @Param("granularity") EmissionRollup.Granularity granularity,
+            @Param("from") Instant from,
+            @Param("until") Instant until
+    );
+
+    @Query("""
+            select r.bucketStart as bucket, sum(r.entries) as entries, sum(r.tokens) as tokens,
+                   sum(r.energyKwh) as energyKwh, sum(r.co2Grams) as co2Grams, sum(r.waterLiters) as waterLiters
+            from EmissionRollup r
+            where r.userId = :userId and r.granularity = :granularity
+              and r.bucketStart >= :from and r.bucketStart < :until
+            group by r.bucketStart
+            order by r.bucketStart
+            """)
+    List<BucketTotals> totalsByBucket(
+            @Param("userId") UUID userId,
+            @Param("granularity") EmissionRollup.Granularity granularity,
+            @Param("from") Instant from,
+            @Param("until") Instant until
+    );
+
+    @Modifying
+    @Query("delete from EmissionRollup r where r.bucketStart >= :from and r.bucketStart < :until")
+    int deleteBuckets(@Param("from") Instant from, @Param("until") Instant until);
+
+    // Recomputes buckets from raw logs. Buckets are UTC regardless of the session time zone; grouping uses
+    // select-list positions because the bucket expression is parameterised.
+    @Modifying
+    @Query(value = """
+            insert into emission_rollups (id, user_id, granularity, bucket_start, model, region,
+                                          entries, tokens, energy_kwh, co2grams, water_liters, green_score_sum)
+            select gen_random_uuid(), user_id, :granularity,
+                   date_trunc(:unit, created_at at time zone 'UTC') at time zone 'UTC', model, region,
+                   count(*), sum(tokens), sum(energy_kwh), sum(co2grams), sum(water_liters), sum(green_score)
+            from emission_logs
+            where created_at >= :from and created_at < :until
+            group by 2, 4, 5, 6
+            """, nativeQuery = true)
+    int rebuildBuckets(
+            @Param("granularity") String granularity,
+            @Param("unit") String unit,
+            @Param("from") Instant from,
+            @Param("until") Instant until
+    );
+
+    @Query(value = """
+            select user_id as userId,
+                   count(*) as entries,
+                   sum(tokens) as tokens,
+                   sum(co2grams) as co2Grams
+            from emission_logs
+            where created_at >= :from and created_at < :until
+            group by user_id
+            """, nativeQuery = true)
+    List<UserTotals> rawTotalsByUser(@Param("from") Instant from, @Param("until") Instant until);
+
+    @Query(value = """
+            select user_id as userId,
+                   sum(entries) as entries,
+                   sum(tokens) as tokens,
+                   sum(co2grams) as co2Grams
+            from emission_rollups
+            where granularity = :granularity and bucket_start >= :from and bucket_start < :until
+            group by user_id
+            """, nativeQuery = true)
+    List<UserTotals> rollupTotalsByUser(
+            @Param("granularity") String granularity,
+            @Param("from") Instant from,
+            @Param("until") Instant until
+    );
+
+    interface BucketTotals extends EmissionRepository.Totals {
+        Instant getBucket();
+    }
+
+    interface UserTotals {
+        UUID getUserId();
+        long getEntries();
+        long getTokens();
+        BigDecimal getCo2Grams();
+    }
+}
@@ -0,0 +1,20 @@
+package com.ecopulse.backend.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+// Read-side projection of emission_logs: exactly the columns the API and reports render, all of them in the
+// covering history index, and no User association or persistence-context entry.
+public record EmissionRow(
+        UUID id,
+        Instant createdAt,
+        String model,
+        String region,
+        long tokens,
+        double runtimeSeconds,
+        BigDecimal energyKwh,
+        BigDecimal co2Grams,
+        BigDecimal waterLiters,
+        int greenScore
+) {}
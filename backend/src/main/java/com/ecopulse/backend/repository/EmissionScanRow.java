@@ -0,0 +1,19 @@
+package com.ecopulse.backend.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+// EmissionRow plus written_at, the cursor of the analytics loader's scan in write order.
+public record EmissionScanRow(
+        UUID id,
+        Instant writtenAt,
+        Instant createdAt,
+        String model,
+        String region,
+        long tokens,
+        BigDecimal energyKwh,
+        BigDecimal co2Grams,
+        BigDecimal waterLiters,
+        int greenScore
+) {}
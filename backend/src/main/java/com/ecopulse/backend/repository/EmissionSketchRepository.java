@@ -0,0 +1,84 @@
+package com.ecopulse.backend.repository;
+
+import com.ecopulse.backend.model.EmissionSketch;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+public interface EmissionSketchRepository extends JpaRepository<EmissionSketch, UUID> {
+    // Creates an empty sketch row so the following locking read always finds one, even when two writers
+    // start the same (user, model, region, day) at once.
+    @Modifying
+    @Query(value = """
+            insert into emission_sketches (id, user_id, day_start, model, region, entries, sketch)
+            values (:id, :userId, :dayStart, :model, :region, 0, :empty)
+            on conflict (user_id, day_start, model, region) do nothing
+            """, nativeQuery = true)
+    void insertIfAbsent(
+            @Param("id") UUID id,
+            @Param("userId") UUID userId,
+            @Param("dayStart") Instant dayStart,
+            @Param("model") String model,
+            @Param("region") String region,
+            @Param("empty") byte[] empty
+    );
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select s from EmissionSketch s
+            where s.userId = :userId and s.dayStart = :dayStart and s.model = :model and s.region = :region
+            """)
+    EmissionSketch lock(
+            @Param("userId") UUID userId,
+            @Param("dayStart") Instant dayStart,
+            @Param("model") String model,
+            @Param("region") String region
+    );
+
+    @Query("""
+            select s.model as model, s.region as region, s.sketch as sketch
+            from EmissionSketch s
+            where s.userId = :userId and s.dayStart >= :from and s.dayStart < :until and s.entries > 0
+            """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<SketchRow> streamSketches(@Param("userId") UUID userId, @Param("from") Instant from, @Param("until") Instant until);
+
+    @Modifying
+    @Query("delete from EmissionSketch s where s.dayStart >= :from and s.dayStart < :until")
+    int deleteDays(@Param("from") Instant from, @Param("until") Instant until);
+
+    @Query(value = """
+            select user_id as userId, model, region, co2grams as co2Grams, tokens
+            from emission_logs
+            where created_at >= :from and created_at < :until and tokens > 0
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<Sample> streamSamples(@Param("from") Instant from, @Param("until") Instant until);
+
+    interface SketchRow {
+        String getModel();
+        String getRegion();
+        byte[] getSketch();
+    }
+
+    interface Sample {
+        UUID getUserId();
+        String getModel();
+        String getRegion();
+        BigDecimal getCo2Grams();
+        long getTokens();
+    }
+}
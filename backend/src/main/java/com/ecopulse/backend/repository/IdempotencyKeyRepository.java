@@ -0,0 +1,29 @@
+package com.ecopulse.backend.repository;
+
+import com.ecopulse.backend.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, UUID> {
+    List<IdempotencyKey> findByUserIdAndKeyInAndCreatedAtAfter(UUID userId, Collection<String> keys, Instant cutoff);
+
+    List<IdempotencyKey> findByUserIdAndKeyIn(UUID userId, Collection<String> keys);
+
+    @Query("select k from IdempotencyKey k where k.createdAt > :cutoff")
+    Stream<IdempotencyKey> streamCreatedAfter(Instant cutoff);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :cutoff")
+    int deleteCreatedBefore(Instant cutoff);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.userId = :userId and k.key in :keys and k.createdAt < :cutoff")
+    int deleteExpired(UUID userId, Collection<String> keys, Instant cutoff);
+}
@@ -1,29 +1,66 @@
 package com.ecopulse.backend.service;
 
 import com.ecopulse.backend.model.CarbonBudget;
+import com.ecopulse.backend.model.EmissionLog;
 import com.ecopulse.backend.model.User;
 import com.ecopulse.backend.repository.CarbonBudgetRepository;
 import com.ecopulse.backend.repository.EmissionRepository;
+import com.ecopulse.backend.service.budget.BudgetCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
 
 @Service
 public class BudgetService {
+    private static final Logger log = LoggerFactory.getLogger(BudgetService.class);
+    // Budgets that ended within this window are still reconciled, covering late (queued) writes.
+    private static final Duration RECONCILE_GRACE = Duration.ofDays(1);
+
     private final CarbonBudgetRepository carbonBudgetRepository;
     private final EmissionRepository emissionRepository;
+    private final ApplicationEventPublisher events;
+    private final Counter reconciled;
 
-    public BudgetService(CarbonBudgetRepository carbonBudgetRepository, EmissionRepository emissionRepository) {
+    public BudgetService(
+            CarbonBudgetRepository carbonBudgetRepository,
+            EmissionRepository emissionRepository,
+            ApplicationEventPublisher events,
+            MeterRegistry meterRegistry
+    ) {
         this.carbonBudgetRepository = carbonBudgetRepository;
         this.emissionRepository = emissionRepository;
+        this.events = events;
+        this.reconciled = Counter.builder("ecopulse.budget.reconciled")
+                .description("Carbon budgets whose usage counter was repaired from emission logs")
+                .register(meterRegistry);
     }
 
+    @Transactional
     public CarbonBudget create(User user, CreateBudgetRequest request) {
         var budget = new CarbonBudget(user, request.periodStart(), request.periodEnd(), request.co2GramsLimit());
-        return carbonBudgetRepository.save(budget);
+        budget.setAlertThresholdPercent(request.alertThresholdPercent());
+        budget.setHardCap(request.hardCap());
+        // Usage already recorded inside the period counts from the start; ingest keeps it current from here on.
+        var used = emissionRepository.totalsBetween(user.getId(), request.periodStart(), request.periodEnd()).getCo2Grams();
+        budget.setCo2GramsUsed(used == null ? BigDecimal.ZERO : used);
+        var saved = carbonBudgetRepository.save(budget);
+        // Indexed once committed, so a rolled-back create never enforces a cap.
+        events.publishEvent(new BudgetCreatedEvent(saved));
+        return saved;
     }
 
     public List<CarbonBudget> list(UUID userId) {
@@ -36,20 +73,60 @@ public class BudgetService {
             throw new IllegalArgumentException("Not allowed");
         }
 
-        // Compute usage from emission logs (simple approach). For production scale use aggregate query.
-        var logs = emissionRepository.findByUserIdOrderByCreatedAtDesc(userId, org.springframework.data.domain.Pageable.ofSize(2000)).getContent();
-        BigDecimal used = BigDecimal.ZERO;
-        for (var log : logs) {
-            var ts = log.getCreatedAt();
-            if (ts.isBefore(budget.getPeriodStart()) || ts.isAfter(budget.getPeriodEnd())) continue;
-            used = used.add(log.getCo2Grams());
-        }
-
+        var used = budget.getCo2GramsUsed();
         var remaining = budget.getCo2GramsLimit().subtract(used);
         return new BudgetStatus(budget.getId(), budget.getPeriodStart(), budget.getPeriodEnd(), budget.getCo2GramsLimit(), used, remaining);
     }
 
-    public record CreateBudgetRequest(Instant periodStart, Instant periodEnd, BigDecimal co2GramsLimit) {}
+    // Called by EmissionWriter inside the ingest transaction: one lookup per user in the batch, then one
+    // relative UPDATE per budget whose period contains any of the new logs.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUsage(List<EmissionLog> logs) {
+        var byUser = new HashMap<UUID, List<EmissionLog>>();
+        for (var emissionLog : logs) {
+            byUser.computeIfAbsent(emissionLog.getUser().getId(), id -> new ArrayList<>()).add(emissionLog);
+        }
+
+        for (var entry : byUser.entrySet()) {
+            var userLogs = entry.getValue();
+            var first = userLogs.get(0).getCreatedAt();
+            var last = first;
+            for (var emissionLog : userLogs) {
+                if (emissionLog.getCreatedAt().isBefore(first)) first = emissionLog.getCreatedAt();
+                if (emissionLog.getCreatedAt().isAfter(last)) last = emissionLog.getCreatedAt();
+            }
+
+            for (var budget : carbonBudgetRepository.findOverlapping(entry.getKey(), first, last)) {
+                var delta = BigDecimal.ZERO;
+                for (var emissionLog : userLogs) {
+                    var ts = emissionLog.getCreatedAt();
+                    if (ts.isBefore(budget.getPeriodStart()) || ts.isAfter(budget.getPeriodEnd())) continue;
+                    delta = delta.add(emissionLog.getCo2Grams());
+                }
+                if (delta.signum() != 0) carbonBudgetRepository.addUsage(budget.getId(), delta);
+            }
+        }
+    }
+
+    // Usage is exact at ingest, so this only repairs drift (e.g. from writes made before counters existed) and
+    // runs hourly; each run sums the active periods over the (user_id, created_at) covering index.
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT5M")
+    @Transactional
+    public void reconcile() {
+        var repaired = carbonBudgetRepository.reconcileUsage(Instant.now().minus(RECONCILE_GRACE));
+        if (repaired > 0) {
+            reconciled.increment(repaired);
+            log.warn("Repaired usage drift on {} carbon budgets", repaired);
+        }
+    }
+
+    public record CreateBudgetRequest(
+            Instant periodStart,
+            Instant periodEnd,
+            BigDecimal co2GramsLimit,
+            Integer alertThresholdPercent,
+            boolean hardCap
+    ) {}
 
     public record BudgetStatus(UUID id, Instant periodStart, Instant periodEnd, BigDecimal limitCo2Grams, BigDecimal usedCo2Grams, BigDecimal remainingCo2Grams) {}
 }
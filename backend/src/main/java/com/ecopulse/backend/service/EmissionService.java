@@ -1,18 +1,32 @@
 package com.ecopulse.backend.service;
 
-import com.ecopulse.backend.client.AiEngineClient;
 import com.ecopulse.backend.model.EmissionLog;
-import com.ecopulse.backend.model.GreenScore;
 import com.ecopulse.backend.model.User;
 import com.ecopulse.backend.repository.EmissionRepository;
-import com.ecopulse.backend.repository.GreenScoreRepository;
+import com.ecopulse.backend.repository.EmissionRow;
+import com.ecopulse.backend.service.budget.BudgetIndex;
+import com.ecopulse.backend.service.cache.SummaryCache;
+import com.ecopulse.backend.service.calc.EmissionCalculator;
+import com.ecopulse.backend.service.ingest.EmissionIngestQueue;
+import com.ecopulse.backend.service.ingest.EmissionWriter;
+import com.ecopulse.backend.service.ingest.IdempotencyService;
+import com.ecopulse.backend.service.rollup.EmissionRollupService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -21,29 +35,151 @@ public class EmissionService {
     private static final BigDecimal DEFAULT_WATER_FACTOR_L_PER_KWH = new BigDecimal("1.8");
 
     private final EmissionRepository emissionRepository;
-    private final GreenScoreRepository greenScoreRepository;
     private final RegionCarbonService regionCarbonService;
-    private final AiEngineClient aiEngineClient;
+    private final EmissionCalculator emissionCalculator;
+    private final EmissionWriter emissionWriter;
+    private final EmissionIngestQueue ingestQueue;
+    private final IdempotencyService idempotencyService;
+    private final EmissionRollupService rollupService;
+    private final BudgetIndex budgetIndex;
+    private final SummaryCache summaryCache;
 
     public EmissionService(
             EmissionRepository emissionRepository,
-            GreenScoreRepository greenScoreRepository,
             RegionCarbonService regionCarbonService,
-            AiEngineClient aiEngineClient
+            EmissionCalculator emissionCalculator,
+            EmissionWriter emissionWriter,
+            EmissionIngestQueue ingestQueue,
+            IdempotencyService idempotencyService,
+            EmissionRollupService rollupService,
+            BudgetIndex budgetIndex,
+            SummaryCache summaryCache
     ) {
         this.emissionRepository = emissionRepository;
-        this.greenScoreRepository = greenScoreRepository;
         this.regionCarbonService = regionCarbonService;
-        this.aiEngineClient = aiEngineClient;
+        this.emissionCalculator = emissionCalculator;
+        this.emissionWriter = emissionWriter;
+        this.ingestQueue = ingestQueue;
+        this.idempotencyService = idempotencyService;
+        this.rollupService = rollupService;
+        this.budgetIndex = budgetIndex;
+        this.summaryCache = summaryCache;
     }
 
-    public EmissionLog createLog(User user, CreateEmissionRequest request) {
+    public Recorded createLog(User user, CreateEmissionRequest request) {
+        return createBatch(user, List.of(request)).get(0);
+    }
+
+    // Asynchronous ingest: the log is computed on the caller's thread, then handed to the write-behind queue.
+    // Falls back to a synchronous write when the async mode is disabled.
+    public Submission submit(User user, CreateEmissionRequest request) {
+        if (!ingestQueue.enabled()) {
+            var recorded = createLog(user, request);
+            return new Submission(recorded.log().getId(), false, recorded.duplicate());
+        }
+
+        if (request.idempotencyKey() != null) {
+            var existing = idempotencyService.findExisting(user.getId(), List.of(request.idempotencyKey()));
+            if (!existing.isEmpty()) {
+                idempotencyService.recordDuplicate();
+                return new Submission(existing.get(request.idempotencyKey()), false, true);
+            }
+        }
+
         var regionIntensity = Optional.ofNullable(request.regionCarbonIntensity())
                 .orElseGet(() -> regionCarbonService.lookup(request.region()).carbonIntensityGPerKwh());
+        var log = toLog(user, request, regionIntensity);
+        var key = request.idempotencyKey();
+        if (key != null) {
+            var holder = idempotencyService.claimQueued(user.getId(), key, log.getId());
+            if (holder != null) {
+                idempotencyService.recordDuplicate();
+                return new Submission(holder, false, true);
+            }
+        }
+        try {
+            budgetIndex.admit(List.of(log));
+            ingestQueue.submit(log);
+        } catch (RuntimeException e) {
+            if (key != null) idempotencyService.releaseQueued(user.getId(), key);
+            throw e;
+        }
+        return new Submission(log.getId(), true, false);
+    }
+
+    public List<Recorded> createBatch(User user, List<CreateEmissionRequest> requests) {
+        var keys = new HashSet<String>();
+        for (var request : requests) {
+            if (request.idempotencyKey() != null) keys.add(request.idempotencyKey());
+        }
+
+        var existing = keys.isEmpty() ? Map.<String, UUID>of() : idempotencyService.findExisting(user.getId(), keys);
+        try {
+            return record(user, requests, existing);
+        } catch (DataIntegrityViolationException e) {
+            // Another request committed one of these keys between the check and the insert.
+            var raced = idempotencyService.findExistingUnfiltered(user.getId(), keys);
+            if (raced.isEmpty()) throw e;
+            return record(user, requests, raced);
+        }
+    }
 
+    private List<Recorded> record(User user, List<CreateEmissionRequest> requests, Map<String, UUID> existing) {
+        // Batch ingest resolves each distinct region once, so the whole batch costs one region lookup per
+        // region and a single batched write.
+        var intensities = new HashMap<String, BigDecimal>();
+        var fresh = new ArrayList<EmissionLog>(requests.size());
+        var freshIndexes = new ArrayList<Integer>(requests.size());
+        var freshByKey = new HashMap<String, EmissionLog>();
+        var duplicateKeys = new HashMap<Integer, String>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            var request = requests.get(i);
+            var key = request.idempotencyKey();
+            if (key != null && (existing.containsKey(key) || freshByKey.containsKey(key))) {
+                duplicateKeys.put(i, key);
+                continue;
+            }
+
+            var regionIntensity = request.regionCarbonIntensity() != null
+                    ? request.regionCarbonIntensity()
+                    : intensities.computeIfAbsent(request.region(), r -> regionCarbonService.lookup(r).carbonIntensityGPerKwh());
+            var log = toLog(user, request, regionIntensity);
+            fresh.add(log);
+            freshIndexes.add(i);
+            if (key != null) freshByKey.put(key, log);
+        }
+
+        // Hard-capped budgets are checked in memory before anything is written.
+        budgetIndex.admit(fresh);
+
+        var results = new Recorded[requests.size()];
+        var saved = fresh.isEmpty() ? List.<EmissionLog>of() : emissionWriter.write(fresh);
+        for (int i = 0; i < saved.size(); i++) {
+            results[freshIndexes.get(i)] = new Recorded(saved.get(i), false);
+        }
+
+        if (!duplicateKeys.isEmpty()) {
+            var originals = new HashMap<UUID, EmissionLog>();
+            for (var log : emissionRepository.findAllById(existing.values())) {
+                originals.put(log.getId(), log);
+            }
+            for (var duplicate : duplicateKeys.entrySet()) {
+                var key = duplicate.getValue();
+                // The original can be gone while its key is still live, e.g. after partition retention.
+                var original = freshByKey.containsKey(key) ? freshByKey.get(key) : originals.get(existing.get(key));
+                results[duplicate.getKey()] = new Recorded(original, true);
+                idempotencyService.recordDuplicate();
+            }
+        }
+
+        return List.of(results);
+    }
+
+    private EmissionLog toLog(User user, CreateEmissionRequest request, BigDecimal regionIntensity) {
         var waterFactor = Optional.ofNullable(request.waterFactor()).orElse(DEFAULT_WATER_FACTOR_L_PER_KWH);
 
-        var calc = aiEngineClient.calculateEmissions(new AiEngineClient.EmissionCalcRequest(
+        var computed = emissionCalculator.calculate(new EmissionCalculator.Inputs(
                 request.model(),
                 request.region(),
                 request.tokens(),
@@ -53,14 +189,6 @@ public class EmissionService {
                 waterFactor
         ));
 
-        var computed = calc.orElseGet(() -> fallbackCompute(
-                request.tokens(),
-                request.modelPowerFactor(),
-                request.runtimeSeconds(),
-                regionIntensity,
-                waterFactor
-        ));
-
         var log = new EmissionLog(user);
         log.setModel(request.model());
         log.setRegion(request.region());
@@ -72,73 +200,37 @@ public class EmissionService {
         log.setEnergyKwh(computed.energyKwh());
         log.setCo2Grams(computed.co2Grams());
         log.setWaterLiters(computed.waterLiters());
-
-        int score = computed.greenScore() != null ? computed.greenScore() : greenScore(computed.co2Grams(), request.tokens());
-        log.setGreenScore(score);
-
-        var saved = emissionRepository.save(log);
-        greenScoreRepository.save(new GreenScore(user, score, "derived from emissions"));
-        return saved;
+        log.setGreenScore(computed.greenScore());
+        log.setIdempotencyKey(request.idempotencyKey());
+        return log;
     }
 
-    public Page<EmissionLog> history(UUID userId, Pageable pageable) {
-        return emissionRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
+    @Transactional(readOnly = true)
+    public Page<EmissionRow> history(UUID userId, Pageable pageable) {
+        return emissionRepository.findRows(userId, pageable);
     }
 
-    public Summary summary(UUID userId, Instant from, Instant to) {
-        // Lightweight: page through recent logs if needed; for now compute using repository find-by-user and filter.
-        // For production scale, use a dedicated aggregate query.
-        var all = emissionRepository.findByUserIdOrderByCreatedAtDesc(userId, Pageable.ofSize(500)).getContent();
-        var totalEnergy = BigDecimal.ZERO;
-        var totalCo2 = BigDecimal.ZERO;
-        var totalWater = BigDecimal.ZERO;
-        long totalTokens = 0;
-
-        for (var log : all) {
-            var ts = log.getCreatedAt();
-            if ((from != null && ts.isBefore(from)) || (to != null && ts.isAfter(to))) continue;
-            totalEnergy = totalEnergy.add(log.getEnergyKwh());
-            totalCo2 = totalCo2.add(log.getCo2Grams());
-            totalWater = totalWater.add(log.getWaterLiters());
-            totalTokens += log.getTokens();
-        }
+    // Cursor pagination, newest first. Fetches one extra row to know whether another page exists, so no
+    // COUNT(*) is needed.
+    @Transactional(readOnly = true)
+    public HistorySlice historyAfter(UUID userId, HistoryCursor after, int limit) {
+        var page = Limit.of(limit + 1);
+        var rows = after == null
+                ? emissionRepository.findFirstRows(userId, page)
+                : emissionRepository.findRowsBefore(userId, after.createdAt(), after.id(), page);
+        if (rows.size() <= limit) return new HistorySlice(rows, null);
 
-        return new Summary(totalTokens, totalEnergy, totalCo2, totalWater);
+        var items = rows.subList(0, limit);
+        var last = items.get(limit - 1);
+        return new HistorySlice(items, new HistoryCursor(last.createdAt(), last.id()));
     }
 
-    private static AiEngineClient.EmissionCalcResponse fallbackCompute(
-            long tokens,
-            BigDecimal modelPowerFactor,
-            double runtimeSeconds,
-            BigDecimal regionCarbonIntensity,
-            BigDecimal waterFactor
-    ) {
-        // Formula (given):
-        // Energy (kWh) = Tokens × ModelPowerFactor × Runtime
-        // CO2 (g) = Energy × RegionCarbonIntensity
-        // Water (L) = Energy × WaterFactor
-        // We interpret runtime as hours, derived from seconds.
-
-        var runtimeHours = BigDecimal.valueOf(runtimeSeconds).divide(BigDecimal.valueOf(3600), 12, RoundingMode.HALF_UP);
-        var energy = BigDecimal.valueOf(tokens)
-                .multiply(modelPowerFactor)
-                .multiply(runtimeHours)
-                .setScale(8, RoundingMode.HALF_UP);
-
-        var co2 = energy.multiply(regionCarbonIntensity).setScale(8, RoundingMode.HALF_UP);
-        var water = energy.multiply(waterFactor).setScale(8, RoundingMode.HALF_UP);
-        return new AiEngineClient.EmissionCalcResponse(energy, co2, water, greenScore(co2, tokens), null);
-    }
-
-    private static int greenScore(BigDecimal co2Grams, long tokens) {
-        // Simple heuristic score: penalize high CO2 per 1k tokens.
-        // Target <= 50g per 1k tokens => near 100; >= 500g per 1k tokens => near 0.
-        var denom = Math.max(1L, tokens);
-        var per1k = co2Grams.divide(BigDecimal.valueOf(denom), 12, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(1000));
-        var x = per1k.doubleValue();
-        var score = (int) Math.round(100 - ((x - 50) / (500 - 50)) * 100);
-        return Math.max(0, Math.min(100, score));
+    // Cached per (user, window); ReportService and the PDF KPIs go through here as well.
+    public Summary summary(UUID userId, Instant from, Instant to) {
+        return summaryCache.get(userId, from, to, (start, end) -> {
+            var totals = rollupService.totals(userId, start, end);
+            return new Summary(totals.tokens(), totals.energyKwh(), totals.co2Grams(), totals.waterLiters());
+        });
     }
 
     public record CreateEmissionRequest(
@@ -148,8 +240,38 @@ public class EmissionService {
             double runtimeSeconds,
             BigDecimal modelPowerFactor,
             BigDecimal regionCarbonIntensity,
-            BigDecimal waterFactor
+            BigDecimal waterFactor,
+            String idempotencyKey
     ) {}
 
+    // log is null for a duplicate whose original log no longer exists.
+    public record Recorded(EmissionLog log, boolean duplicate) {
+        public boolean originalMissing() {
+            return duplicate && log == null;
+        }
+    }
+
+    public record Submission(UUID id, boolean queued, boolean duplicate) {}
+
+    public record HistorySlice(List<EmissionRow> items, HistoryCursor next) {}
+
+    // Opaque to clients: base64url of "<createdAt>,<id>".
+    public record HistoryCursor(Instant createdAt, UUID id) {
+        public String encode() {
+            var raw = createdAt + "," + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static HistoryCursor decode(String cursor) {
+            try {
+                var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                var comma = raw.indexOf(',');
+                return new HistoryCursor(Instant.parse(raw.substring(0, comma)), UUID.fromString(raw.substring(comma + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+
     public record Summary(long totalTokens, BigDecimal totalEnergyKwh, BigDecimal totalCo2Grams, BigDecimal totalWaterLiters) {}
 }
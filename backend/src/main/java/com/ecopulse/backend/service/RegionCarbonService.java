@@ -1,12 +1,21 @@
 package com.ecopulse.backend.service;
 
 import com.ecopulse.backend.client.AiEngineClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class RegionCarbonService {
@@ -18,17 +27,29 @@ public class RegionCarbonService {
             Map.entry("europe-west1", new BigDecimal("220")),
             Map.entry("europe-north1", new BigDecimal("110"))
     );
+    private static final Duration MAX_WAIT = Duration.ofSeconds(3);
 
     private final AiEngineClient aiEngineClient;
+    // One ai-engine call per normalized region at a time; concurrent cache misses wait on the same future.
+    private final Map<String, CompletableFuture<Optional<AiEngineClient.RegionCarbonResponse>>> inFlight = new ConcurrentHashMap<>();
 
-    public RegionCarbonService(AiEngineClient aiEngineClient) {
+    private final Counter fetched;
+    private final Counter coalesced;
+    private final Counter timedOut;
+
+    public RegionCarbonService(AiEngineClient aiEngineClient, MeterRegistry meterRegistry) {
         this.aiEngineClient = aiEngineClient;
+        this.fetched = lookups(meterRegistry, "fetched");
+        this.coalesced = lookups(meterRegistry, "coalesced");
+        this.timedOut = lookups(meterRegistry, "timed_out");
     }
 
-    @Cacheable(cacheNames = "region-carbon", key = "#region")
+    // Fallback values are not cached, so the next miss retries the engine (or its open circuit) right away.
+    @Cacheable(cacheNames = "region-carbon", key = "T(com.ecopulse.backend.service.RegionCarbonService).normalize(#region)",
+            unless = "#result.source() == 'fallback'")
     public RegionCarbonResult lookup(String region) {
         var normalized = normalize(region);
-        var api = aiEngineClient.regionCarbon(normalized);
+        var api = fetch(normalized);
         if (api.isPresent() && api.get().carbonIntensityGPerKwh() != null) {
             return new RegionCarbonResult(normalized, api.get().carbonIntensityGPerKwh(), api.get().source());
         }
@@ -37,9 +58,46 @@ public class RegionCarbonService {
         return new RegionCarbonResult(normalized, fallback, "fallback");
     }
 
-    private static String normalize(String region) {
+    public static String normalize(String region) {
         return region == null ? "" : region.trim().toLowerCase(Locale.ROOT);
     }
 
+    // Waiters give up after MAX_WAIT and use the fallback; the shared call keeps running for the others.
+    private Optional<AiEngineClient.RegionCarbonResponse> fetch(String normalized) {
+        var mine = new CompletableFuture<Optional<AiEngineClient.RegionCarbonResponse>>();
+        var shared = inFlight.putIfAbsent(normalized, mine);
+        if (shared == null) {
+            fetched.increment();
+            shared = mine;
+            aiEngineClient.regionCarbonAsync(normalized)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .onErrorReturn(Optional.empty())
+                    .subscribe(mine::complete, mine::completeExceptionally, () -> {});
+            mine.whenComplete((response, error) -> inFlight.remove(normalized, mine));
+        } else {
+            coalesced.increment();
+        }
+
+        try {
+            return shared.get(MAX_WAIT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ecopulse.region.carbon.lookups")
+                .description("Region carbon cache misses by outcome: fetched from the ai-engine, coalesced onto an in-flight fetch, or timed out waiting")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
     public record RegionCarbonResult(String region, BigDecimal carbonIntensityGPerKwh, String source) {}
 }
@@ -6,6 +6,7 @@ import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
@@ -62,15 +63,18 @@ public class ReportService {
             table.addCell(header("CO2 (g)"));
             table.addCell(header("Score"));
 
-            var logs = emissionRepository.findByUserIdOrderByCreatedAtDesc(user.getId(), org.springframework.data.domain.Pageable.ofSize(25)).getContent();
-            for (var log : logs) {
-                var ts = log.getCreatedAt();
-                if ((from != null && ts.isBefore(from)) || (to != null && ts.isAfter(to))) continue;
-                table.addCell(cell(formatter.format(ts)));
-                table.addCell(cell(log.getModel()));
-                table.addCell(cell(String.valueOf(log.getTokens())));
-                table.addCell(cell(log.getCo2Grams().stripTrailingZeros().toPlainString()));
-                table.addCell(cell(String.valueOf(log.getGreenScore())));
+            var rows = emissionRepository.findRowsBetween(
+                    user.getId(),
+                    from == null ? EmissionRepository.RANGE_START : from,
+                    to == null ? EmissionRepository.RANGE_END : to,
+                    Limit.of(25)
+            );
+            for (var row : rows) {
+                table.addCell(cell(formatter.format(row.createdAt())));
+                table.addCell(cell(row.model()));
+                table.addCell(cell(String.valueOf(row.tokens())));
+                table.addCell(cell(row.co2Grams().stripTrailingZeros().toPlainString()));
+                table.addCell(cell(String.valueOf(row.greenScore())));
             }
             doc.add(table);
 
@@ -0,0 +1,122 @@
+package com.ecopulse.backend.service.analytics;
+
+// Fixed-capacity block of emission rows stored column by column. A single appender (holding the store lock)
+// fills the arrays and then publishes the new size through a volatile write, so concurrent scans read a
+// consistent prefix without locking. Amounts are fixed point × 10^8, like BudgetIndex, so sums are exact.
+final class ColumnSegment {
+    // 5 longs + 2 shorts + 1 byte per row.
+    static final int BYTES_PER_ROW = 5 * Long.BYTES + 2 * Short.BYTES + Byte.BYTES;
+
+    private final long[] createdAtMillis;
+    private final long[] tokens;
+    private final long[] energyE8;
+    private final long[] co2E8;
+    private final long[] waterE8;
+    private final short[] model;
+    private final short[] region;
+    private final byte[] greenScore;
+
+    private long minCreatedAt = Long.MAX_VALUE;
+    private long maxCreatedAt = Long.MIN_VALUE;
+    private volatile int size;
+
+    ColumnSegment(int capacity) {
+        createdAtMillis = new long[capacity];
+        tokens = new long[capacity];
+        energyE8 = new long[capacity];
+        co2E8 = new long[capacity];
+        waterE8 = new long[capacity];
+        model = new short[capacity];
+        region = new short[capacity];
+        greenScore = new byte[capacity];
+    }
+
+    boolean isFull() {
+        return size == createdAtMillis.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return createdAtMillis.length;
+    }
+
+    long maxCreatedAt() {
+        return maxCreatedAt;
+    }
+
+    void append(long createdAt, long tokenCount, long energy, long co2, long water, short modelCode, short regionCode, int score) {
+        var i = size;
+        createdAtMillis[i] = createdAt;
+        tokens[i] = tokenCount;
+        energyE8[i] = energy;
+        co2E8[i] = co2;
+        waterE8[i] = water;
+        model[i] = modelCode;
+        region[i] = regionCode;
+        greenScore[i] = (byte) score;
+        minCreatedAt = Math.min(minCreatedAt, createdAt);
+        maxCreatedAt = Math.max(maxCreatedAt, createdAt);
+        size = i + 1;
+    }
+
+    // Adds rows with createdAt in [from, to] matching the optional codes (-1 = any) into partial. Segments
+    // entirely outside the range are skipped; rows whose code postdates the caller's dictionary snapshot were
+    // appended after the query started and are left out.
+    void aggregate(long from, long to, int modelFilter, int regionFilter, ColumnarEmissionStore.GroupBy groupBy, Partial partial) {
+        var n = size;
+        if (n == 0 || maxCreatedAt < from || minCreatedAt > to) return;
+        var inRange = minCreatedAt >= from && maxCreatedAt <= to;
+        var groups = switch (groupBy) {
+            case MODEL -> model;
+            case REGION -> region;
+            case ALL -> null;
+        };
+        for (int i = 0; i < n; i++) {
+            if (!inRange && (createdAtMillis[i] < from || createdAtMillis[i] > to)) continue;
+            if (modelFilter >= 0 && model[i] != modelFilter) continue;
+            if (regionFilter >= 0 && region[i] != regionFilter) continue;
+            var g = groups == null ? 0 : groups[i];
+            if (g >= partial.entries.length) continue;
+            partial.entries[g]++;
+            partial.tokens[g] += tokens[i];
+            partial.energyE8[g] += energyE8[i];
+            partial.co2E8[g] += co2E8[i];
+            partial.waterE8[g] += waterE8[i];
+            partial.greenScoreSum[g] += greenScore[i];
+        }
+    }
+
+    // Per-group running sums for one scan; merged across segments after the parallel pass.
+    static final class Partial {
+        final long[] entries;
+        final long[] tokens;
+        final long[] energyE8;
+        final long[] co2E8;
+        final long[] waterE8;
+        final long[] greenScoreSum;
+
+        Partial(int groups) {
+            entries = new long[groups];
+            tokens = new long[groups];
+            energyE8 = new long[groups];
+            co2E8 = new long[groups];
+            waterE8 = new long[groups];
+            greenScoreSum = new long[groups];
+        }
+
+        Partial merge(Partial other) {
+            for (int g = 0; g < entries.length; g++) {
+                entries[g] += other.entries[g];
+                tokens[g] += other.tokens[g];
+                energyE8[g] += other.energyE8[g];
+                co2E8[g] += other.co2E8[g];
+                waterE8[g] += other.waterE8[g];
+                greenScoreSum[g] += other.greenScoreSum[g];
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.ecopulse.backend.service.analytics;
+
+import com.ecopulse.backend.config.BackendProperties;
+import com.ecopulse.backend.model.EmissionLog;
+import com.ecopulse.backend.repository.EmissionRepository;
+import com.ecopulse.backend.repository.EmissionScanRow;
+import com.ecopulse.backend.service.ingest.EmissionsWrittenEvent;
+import com.ecopulse.backend.service.partition.EmissionPartitionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Platform-wide emission aggregates for admin dashboards, served from a columnar in-JVM copy of the last
+// windowDays of emission_logs. Rows live in fixed-size ColumnSegments (primitive columns, dictionary-encoded
+// model and region) that are scanned in parallel; the oldest segments are evicted past maxRows or the window.
+//
+// Rows arrive two ways: committed writes on this instance are appended at once, and a periodic keyset scan
+// in written_at order loads everything written more than REFRESH_LAG ago that it has not seen, which covers
+// other instances and the initial backfill. written_at is stamped per write attempt, so logs replayed after
+// an outage with an old createdAt are still picked up. Every appended id is remembered until the scan cursor
+// has passed its written_at (plus one refresh, for commit events that arrive just after the scan saw the row),
+// and an id already remembered is never appended again. The one remaining assumption is that a write
+// transaction commits within REFRESH_LAG of stamping written_at; a longer one is missed on other instances.
+//
+// maxRows eviction can cut into the window; aggregations report retainedFrom, the createdAt from which every
+// row is still held, and flag ranges that start before it as truncated.
+@Component
+public class ColumnarEmissionStore {
+    private static final Logger log = LoggerFactory.getLogger(ColumnarEmissionStore.class);
+
+    public enum GroupBy { MODEL, REGION, ALL }
+
+    static final int SEGMENT_ROWS = 1 << 16;
+    private static final Duration REFRESH_LAG = Duration.ofSeconds(30);
+    private static final int LOAD_BATCH = 10_000;
+    private static final int SCALE = 8;
+    private static final UUID MIN_UUID = new UUID(0, 0);
+
+    private final EmissionRepository emissionRepository;
+    private final JdbcTemplate jdbc;
+    private final EmissionPartitionManager partitionManager;
+    private final boolean enabled;
+    private final Duration window;
+    private final long maxRows;
+
+    private final Dictionary models = new Dictionary();
+    private final Dictionary regions = new Dictionary();
+    // Copy-on-write list of segments, oldest first; only the last one is still being appended to.
+    private volatile List<ColumnSegment> segments = List.of();
+    // Appended ids by written_at, pruned once the scan cursor is safely past them. Guarded by this.
+    private final Map<UUID, Instant> appended = new HashMap<>();
+    private volatile Instant watermark;
+    private volatile long evictedThroughMillis = Long.MIN_VALUE;
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    public ColumnarEmissionStore(
+            EmissionRepository emissionRepository,
+            JdbcTemplate jdbc,
+            EmissionPartitionManager partitionManager,
+            BackendProperties properties
+    ) {
+        this.emissionRepository = emissionRepository;
+        this.jdbc = jdbc;
+        this.partitionManager = partitionManager;
+        var analytics = properties.analytics();
+        this.enabled = analytics.enabled();
+        this.window = Duration.ofDays(analytics.windowDays());
+        this.maxRows = analytics.maxRows();
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        // The loader scans all users by (written_at, id); the per-user history index cannot serve that.
+        var concurrently = partitionManager.isPartitioned() ? "" : " concurrently";
+        jdbc.execute("create index" + concurrently + " if not exists idx_emission_logs_written on emission_logs (written_at, id)");
+        refresh();
+    }
+
+    // Serialised by loadLock rather than the append monitor, so a long backfill does not hold up ingest. A lock
+    // rather than synchronized, so the JDBC wait does not pin the virtual thread's carrier.
+    @Scheduled(fixedDelayString = "PT10S", initialDelayString = "PT10S")
+    public void refresh() {
+        if (!enabled) return;
+        loadLock.lock();
+        try {
+            load();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void load() {
+        var now = Instant.now();
+        var horizon = now.minus(REFRESH_LAG);
+        var windowStart = now.minus(window);
+        var previous = watermark;
+        var initial = previous == null;
+        // Rows written before written_at existed carry the column default (when it was added), which is later
+        // than their createdAt, so a first scan from the window start still covers them.
+        var from = initial ? windowStart : previous;
+        if (!from.isBefore(horizon)) return;
+
+        var cursorAt = from.minus(1, ChronoUnit.MICROS);
+        var cursorId = MIN_UUID;
+        long loaded = 0;
+        while (true) {
+            var rows = emissionRepository.findWrittenAfter(cursorAt, cursorId, horizon, windowStart, Limit.of(LOAD_BATCH));
+            for (var row : rows) {
+                if (appendOnce(row.id(), row.writtenAt())) append(row);
+            }
+            loaded += rows.size();
+            if (rows.size() < LOAD_BATCH) break;
+            var last = rows.get(rows.size() - 1);
+            cursorAt = last.writtenAt();
+            cursorId = last.id();
+        }
+        watermark = horizon;
+        if (!initial) forget(previous);
+        evict(now);
+        if (initial) {
+            log.info("Loaded {} emission rows into the analytics store", loaded);
+        }
+    }
+
+    // Appends after commit, unless the scan already loaded the row between the commit and this event.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onWritten(EmissionsWrittenEvent event) {
+        if (!enabled) return;
+        var windowStart = Instant.now().minus(window);
+        for (var emissionLog : event.logs()) {
+            if (emissionLog.getCreatedAt().isBefore(windowStart)) continue;
+            if (appendOnce(emissionLog.getId(), emissionLog.getWrittenAt())) append(emissionLog);
+        }
+    }
+
+    public Aggregation aggregate(Instant from, Instant to, String model, String region, GroupBy groupBy) {
+        var fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        var toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+        var modelFilter = model == null ? -1 : models.find(model);
+        var regionFilter = region == null ? -1 : regions.find(region);
+        var snapshot = segments;
+        var labels = switch (groupBy) {
+            case MODEL -> models.values();
+            case REGION -> regions.values();
+            case ALL -> new String[]{"all"};
+        };
+
+        List<Group> groups = new ArrayList<>();
+        if ((model == null || modelFilter >= 0) && (region == null || regionFilter >= 0)) {
+            var total = snapshot.parallelStream()
+                    .map(segment -> {
+                        var partial = new ColumnSegment.Partial(labels.length);
+                        segment.aggregate(fromMillis, toMillis, modelFilter, regionFilter, groupBy, partial);
+                        return partial;
+                    })
+                    .reduce(ColumnSegment.Partial::merge)
+                    .orElseGet(() -> new ColumnSegment.Partial(labels.length));
+            for (int g = 0; g < labels.length; g++) {
+                if (total.entries[g] > 0) groups.add(Group.of(labels[g], total, g));
+            }
+            groups.sort(Comparator.comparing(Group::co2Grams).reversed().thenComparing(Group::key));
+        }
+        var windowStart = Instant.now().minus(window);
+        var retainedFrom = retainedFrom(windowStart);
+        var truncated = retainedFrom.isAfter(windowStart) && (from == null || from.isBefore(retainedFrom));
+        return new Aggregation(watermark, retainedFrom, truncated, rows(snapshot), groups);
+    }
+
+    public Stats stats() {
+        var snapshot = segments;
+        long capacity = 0;
+        for (var segment : snapshot) capacity += segment.capacity();
+        return new Stats(enabled, snapshot.size(), rows(snapshot), maxRows, capacity * ColumnSegment.BYTES_PER_ROW, watermark);
+    }
+
+    // The earliest createdAt from which the store holds every row: the window start, or later once maxRows
+    // has evicted segments still inside the window.
+    private Instant retainedFrom(Instant windowStart) {
+        var evictedThrough = evictedThroughMillis;
+        if (evictedThrough == Long.MIN_VALUE) return windowStart;
+        var afterEvicted = Instant.ofEpochMilli(evictedThrough + 1);
+        return afterEvicted.isAfter(windowStart) ? afterEvicted : windowStart;
+    }
+
+    private synchronized boolean appendOnce(UUID id, Instant writtenAt) {
+        return appended.putIfAbsent(id, writtenAt) == null;
+    }
+
+    // Called after a scan up to the new watermark; ids written before the previous one were passed a full
+    // refresh ago, so neither the scan nor a late commit event can bring them back.
+    private synchronized void forget(Instant passed) {
+        appended.values().removeIf(writtenAt -> writtenAt.isBefore(passed));
+    }
+
+    private void append(EmissionScanRow row) {
+        append(row.createdAt(), row.model(), row.region(), row.tokens(), row.energyKwh(), row.co2Grams(), row.waterLiters(), row.greenScore());
+    }
+
+    private void append(EmissionLog emissionLog) {
+        append(emissionLog.getCreatedAt(), emissionLog.getModel(), emissionLog.getRegion(), emissionLog.getTokens(),
+                emissionLog.getEnergyKwh(), emissionLog.getCo2Grams(), emissionLog.getWaterLiters(), emissionLog.getGreenScore());
+    }
+
+    private synchronized void append(
+            Instant createdAt, String model, String region, long tokens,
+            BigDecimal energyKwh, BigDecimal co2Grams, BigDecimal waterLiters, int greenScore
+    ) {
+        var current = segments;
+        var active = current.isEmpty() ? null : current.get(current.size() - 1);
+        if (active == null || active.isFull()) {
+            active = new ColumnSegment(SEGMENT_ROWS);
+            var next = new ArrayList<>(current);
+            next.add(active);
+            segments = List.copyOf(next);
+            evict(Instant.now());
+        }
+        active.append(createdAt.toEpochMilli(), tokens, toE8(energyKwh), toE8(co2Grams), toE8(waterLiters),
+                models.encode(model), regions.encode(region), greenScore);
+    }
+
+    // Drops whole segments from the old end: past the row cap, or holding only rows older than the window.
+    private synchronized void evict(Instant now) {
+        var current = segments;
+        var cutoff = now.minus(window).toEpochMilli();
+        var rows = rows(current);
+        int drop = 0;
+        while (drop < current.size() - 1) {
+            var oldest = current.get(drop);
+            if (rows <= maxRows && oldest.maxCreatedAt() >= cutoff) break;
+            rows -= oldest.size();
+            evictedThroughMillis = Math.max(evictedThroughMillis, oldest.maxCreatedAt());
+            drop++;
+        }
+        if (drop > 0) segments = List.copyOf(current.subList(drop, current.size()));
+    }
+
+    private static long rows(List<ColumnSegment> snapshot) {
+        long rows = 0;
+        for (var segment : snapshot) rows += segment.size();
+        return rows;
+    }
+
+    private static long toE8(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal fromE8(long value) {
+        return BigDecimal.valueOf(value, SCALE);
+    }
+
+    // watermark: rows written before it are complete; rows after it are this instance's own writes only.
+    // retainedFrom: rows created before it may have been evicted, so a range starting earlier is truncated.
+    public record Aggregation(Instant watermark, Instant retainedFrom, boolean truncated, long rows, List<Group> groups) {}
+
+    public record Group(
+            String key,
+            long entries,
+            long tokens,
+            BigDecimal energyKwh,
+            BigDecimal co2Grams,
+            BigDecimal waterLiters,
+            double averageGreenScore
+    ) {
+        static Group of(String key, ColumnSegment.Partial total, int g) {
+            return new Group(
+                    key,
+                    total.entries[g],
+                    total.tokens[g],
+                    fromE8(total.energyE8[g]),
+                    fromE8(total.co2E8[g]),
+                    fromE8(total.waterE8[g]),
+                    (double) total.greenScoreSum[g] / total.entries[g]
+            );
+        }
+    }
+
+    public record Stats(boolean enabled, int segments, long rows, long maxRows, long allocatedBytes, Instant watermark) {}
+}
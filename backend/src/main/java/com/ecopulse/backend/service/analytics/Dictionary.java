@@ -0,0 +1,41 @@
+package com.ecopulse.backend.service.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// String ↔ short code mapping for a low-cardinality column. Codes are added under the store's append lock;
+// readers only use the published values array. Past Short.MAX_VALUE distinct values, new ones share OVERFLOW.
+final class Dictionary {
+    static final short OVERFLOW = 0;
+    private static final String OVERFLOW_VALUE = "other";
+
+    private final Map<String, Short> codes = new HashMap<>();
+    private volatile String[] values = {OVERFLOW_VALUE};
+
+    short encode(String value) {
+        var code = codes.get(value);
+        if (code != null) return code;
+        var current = values;
+        if (current.length > Short.MAX_VALUE) return OVERFLOW;
+        var next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = value;
+        var assigned = (short) current.length;
+        codes.put(value, assigned);
+        values = next;
+        return assigned;
+    }
+
+    // -1 when the value has never been seen, so a filter on it matches nothing.
+    int find(String value) {
+        var snapshot = values;
+        for (int i = 1; i < snapshot.length; i++) {
+            if (snapshot[i].equals(value)) return i;
+        }
+        return -1;
+    }
+
+    String[] values() {
+        return values;
+    }
+}
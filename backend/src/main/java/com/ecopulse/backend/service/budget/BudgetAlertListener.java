@@ -0,0 +1,30 @@
+package com.ecopulse.backend.service.budget;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BudgetAlertListener {
+    private static final Logger log = LoggerFactory.getLogger(BudgetAlertListener.class);
+
+    private final MeterRegistry meterRegistry;
+
+    public BudgetAlertListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener
+    public void onThresholdCrossed(BudgetThresholdCrossedEvent event) {
+        Counter.builder("ecopulse.budget.threshold.crossed")
+                .description("Carbon budget alert thresholds crossed")
+                .tag("threshold", String.valueOf(event.thresholdPercent()))
+                .register(meterRegistry)
+                .increment();
+        log.warn("Carbon budget {} of user {} crossed {}%: {} of {} g CO2", event.budgetId(), event.userId(),
+                event.thresholdPercent(), event.usedCo2Grams(), event.limitCo2Grams());
+    }
+}
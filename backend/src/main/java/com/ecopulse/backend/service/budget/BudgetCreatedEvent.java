@@ -0,0 +1,6 @@
+package com.ecopulse.backend.service.budget;
+
+import com.ecopulse.backend.model.CarbonBudget;
+
+// Published by BudgetService inside the create transaction; BudgetIndex registers the budget after commit.
+public record BudgetCreatedEvent(CarbonBudget budget) {}
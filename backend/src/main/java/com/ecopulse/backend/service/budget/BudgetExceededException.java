@@ -0,0 +1,16 @@
+package com.ecopulse.backend.service.budget;
+
+import java.util.UUID;
+
+public class BudgetExceededException extends RuntimeException {
+    private final UUID budgetId;
+
+    public BudgetExceededException(UUID budgetId) {
+        super("Carbon budget " + budgetId + " would be exceeded");
+        this.budgetId = budgetId;
+    }
+
+    public UUID getBudgetId() {
+        return budgetId;
+    }
+}
@@ -0,0 +1,267 @@
+package com.ecopulse.backend.service.budget;
+
+import com.ecopulse.backend.model.CarbonBudget;
+import com.ecopulse.backend.model.EmissionLog;
+import com.ecopulse.backend.repository.CarbonBudgetRepository;
+import com.ecopulse.backend.service.ingest.EmissionsWrittenEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory view of every active carbon budget, keyed by user, so ingest can check hard caps and raise
+// threshold alerts without a database round-trip. Usage is held as CO2 grams × 10^8 in an AtomicLong and
+// advanced after each committed write; a periodic refresh reconciles it with the counters maintained by
+// BudgetService, which also picks up budgets created on other instances.
+//
+// Both maps are immutable and replaced together, under the instance lock, by refresh and by registration
+// of a new budget. Entries carry over between refreshes, so in-flight usage increments are never lost.
+//
+// Hard caps are checked against committed usage, so concurrent in-flight writes can overshoot a cap by at
+// most what they carry between them. Each instance only sees the others' usage as of its last refresh, so
+// with several instances a cap can also be overshot by whatever the other instances ingest for the budget
+// within one refresh interval (PT1M).
+//
+// Threshold alerts fire once per budget across all instances. The in-memory bitmask only skips thresholds
+// this instance already knows are reported; the fired_thresholds column decides, by a conditional update,
+// which instance publishes. Refresh resets the mask from that column and checks thresholds again, so a
+// crossing caused by another instance's writes is still reported when that instance's view was too stale
+// to see it.
+@Component
+public class BudgetIndex {
+    private static final Logger log = LoggerFactory.getLogger(BudgetIndex.class);
+    private static final int SCALE = 8;
+    private static final int[] DEFAULT_THRESHOLDS = {80, 100};
+
+    private final CarbonBudgetRepository carbonBudgetRepository;
+    private final ApplicationEventPublisher events;
+    // Claims run in their own transaction: they are made after the ingest commit and during read-only refreshes.
+    private final TransactionTemplate claims;
+
+    private volatile Map<UUID, ActiveBudget> byId = Map.of();
+    private volatile Map<UUID, ActiveBudget[]> byUser = Map.of();
+
+    public BudgetIndex(CarbonBudgetRepository carbonBudgetRepository, ApplicationEventPublisher events, TransactionTemplate transactions) {
+        this.carbonBudgetRepository = carbonBudgetRepository;
+        this.events = events;
+        this.claims = new TransactionTemplate(transactions.getTransactionManager());
+        this.claims.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "PT1M", initialDelayString = "PT1M")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        var readStarted = System.nanoTime();
+        for (var entry : byId.values()) entry.startRead();
+        var active = carbonBudgetRepository.findByPeriodEndGreaterThanEqual(Instant.now());
+        synchronized (this) {
+            var next = new HashMap<UUID, ActiveBudget>();
+            for (var budget : active) {
+                var entry = byId.get(budget.getId());
+                if (entry == null) {
+                    entry = load(budget);
+                } else {
+                    entry.reconcile(toE8(budget.getCo2GramsUsed()));
+                    entry.crossed.set(fired(entry, budget));
+                }
+                next.put(entry.id, entry);
+            }
+            // Budgets registered after the read started may not be in it yet.
+            for (var entry : byId.values()) {
+                if (entry.registeredAt - readStarted > 0) next.putIfAbsent(entry.id, entry);
+            }
+            replace(next);
+        }
+        for (var entry : byId.values()) publishCrossed(entry, entry.usedE8.get());
+    }
+
+    // Registers a committed budget so it applies to the very next ingest on this instance.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCreated(BudgetCreatedEvent event) {
+        var entry = load(event.budget());
+        synchronized (this) {
+            var next = new HashMap<>(byId);
+            next.put(entry.id, entry);
+            replace(next);
+        }
+    }
+
+    private void replace(Map<UUID, ActiveBudget> next) {
+        var users = new HashMap<UUID, List<ActiveBudget>>();
+        for (var entry : next.values()) {
+            users.computeIfAbsent(entry.userId, id -> new ArrayList<>()).add(entry);
+        }
+        var nextByUser = new HashMap<UUID, ActiveBudget[]>();
+        users.forEach((userId, budgets) -> nextByUser.put(userId, budgets.toArray(ActiveBudget[]::new)));
+        byId = Map.copyOf(next);
+        byUser = Map.copyOf(nextByUser);
+    }
+
+    // Throws BudgetExceededException if the logs would push any hard-capped budget past its limit.
+    public void admit(List<EmissionLog> logs) {
+        Map<ActiveBudget, Long> pending = null;
+        for (var emissionLog : logs) {
+            var budgets = byUser.get(emissionLog.getUser().getId());
+            if (budgets == null) continue;
+
+            for (var budget : budgets) {
+                if (!budget.hardCap || !budget.contains(emissionLog.getCreatedAt())) continue;
+                if (pending == null) pending = new HashMap<>();
+                var total = pending.merge(budget, toE8(emissionLog.getCo2Grams()), Long::sum);
+                if (budget.usedE8.get() + total > budget.limitE8) {
+                    throw new BudgetExceededException(budget.id);
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onWritten(EmissionsWrittenEvent event) {
+        for (var emissionLog : event.logs()) {
+            var budgets = byUser.get(emissionLog.getUser().getId());
+            if (budgets == null) continue;
+
+            for (var budget : budgets) {
+                if (!budget.contains(emissionLog.getCreatedAt())) continue;
+                publishCrossed(budget, budget.add(toE8(emissionLog.getCo2Grams())));
+            }
+        }
+    }
+
+    private ActiveBudget load(CarbonBudget budget) {
+        var entry = new ActiveBudget(budget);
+        entry.crossed.set(fired(entry, budget));
+        return entry;
+    }
+
+    // Thresholds already crossed when a budget is first loaded by any instance are treated as already reported.
+    private int fired(ActiveBudget entry, CarbonBudget budget) {
+        if (budget.getFiredThresholds() != null) return budget.getFiredThresholds();
+        var mask = entry.crossedBy(entry.usedE8.get());
+        try {
+            claims.executeWithoutResult(tx -> carbonBudgetRepository.initFiredThresholds(entry.id, mask));
+        } catch (DataAccessException e) {
+            log.warn("Could not record alert thresholds of carbon budget {}", entry.id, e);
+        }
+        return mask;
+    }
+
+    // The local bit is set first so this instance claims each threshold once; a failed claim is retried after
+    // the next refresh resets the mask from the database.
+    private void publishCrossed(ActiveBudget budget, long used) {
+        for (int i = 0; i < budget.thresholds.length; i++) {
+            if (used < budget.thresholdsE8[i]) break;
+            var bit = 1 << i;
+            if ((budget.crossed.getAndUpdate(mask -> mask | bit) & bit) != 0) continue;
+            if (!claim(budget, bit)) continue;
+            events.publishEvent(new BudgetThresholdCrossedEvent(
+                    budget.id, budget.userId, budget.thresholds[i], fromE8(used), fromE8(budget.limitE8)
+            ));
+        }
+    }
+
+    private boolean claim(ActiveBudget budget, int bit) {
+        try {
+            var claimed = claims.execute(tx -> carbonBudgetRepository.claimThreshold(budget.id, bit));
+            return claimed != null && claimed == 1;
+        } catch (DataAccessException e) {
+            log.warn("Could not claim an alert threshold of carbon budget {}", budget.id, e);
+            return false;
+        }
+    }
+
+    private static long toE8(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal fromE8(long value) {
+        return BigDecimal.valueOf(value, SCALE);
+    }
+
+    private static final class ActiveBudget {
+        final UUID id;
+        final UUID userId;
+        final Instant periodStart;
+        final Instant periodEnd;
+        final long limitE8;
+        final boolean hardCap;
+        final int[] thresholds;
+        final long[] thresholdsE8;
+        final AtomicLong usedE8;
+        // Local usage added since the current refresh started reading; guarded by this entry's monitor.
+        private long addedSinceRead;
+        final long registeredAt = System.nanoTime();
+        final AtomicInteger crossed = new AtomicInteger();
+
+        private ActiveBudget(CarbonBudget budget) {
+            this.id = budget.getId();
+            this.userId = budget.getUser().getId();
+            this.periodStart = budget.getPeriodStart();
+            this.periodEnd = budget.getPeriodEnd();
+            this.limitE8 = toE8(budget.getCo2GramsLimit());
+            this.hardCap = budget.isHardCap();
+            this.usedE8 = new AtomicLong(toE8(budget.getCo2GramsUsed()));
+
+            var levels = new TreeSet<Integer>();
+            for (var t : DEFAULT_THRESHOLDS) levels.add(t);
+            if (budget.getAlertThresholdPercent() != null) levels.add(budget.getAlertThresholdPercent());
+            this.thresholds = levels.stream().mapToInt(Integer::intValue).toArray();
+            this.thresholdsE8 = new long[thresholds.length];
+            for (int i = 0; i < thresholds.length; i++) {
+                // Computed in BigDecimal so large limits cannot overflow; saturates at Long.MAX_VALUE.
+                var level = budget.getCo2GramsLimit().multiply(BigDecimal.valueOf(thresholds[i])).movePointLeft(2);
+                thresholdsE8[i] = level.compareTo(fromE8(Long.MAX_VALUE)) >= 0 ? Long.MAX_VALUE : toE8(level);
+            }
+        }
+
+        int crossedBy(long used) {
+            var mask = 0;
+            for (int i = 0; i < thresholds.length && used >= thresholdsE8[i]; i++) {
+                mask |= 1 << i;
+            }
+            return mask;
+        }
+
+        synchronized long add(long delta) {
+            addedSinceRead += delta;
+            return usedE8.addAndGet(delta);
+        }
+
+        synchronized void startRead() {
+            addedSinceRead = 0;
+        }
+
+        // The stored counter covers commits up to the read; local commits observed since then are added on
+        // top, so neither side's usage is lost or counted twice (up to the commit-to-listener gap, which the
+        // next refresh evens out). Reconciliation corrections in the stored value carry through as well.
+        synchronized void reconcile(long stored) {
+            usedE8.set(stored + addedSinceRead);
+        }
+
+        boolean contains(Instant at) {
+            return !at.isBefore(periodStart) && !at.isAfter(periodEnd);
+        }
+    }
+}
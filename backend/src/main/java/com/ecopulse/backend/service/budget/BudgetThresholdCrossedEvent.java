@@ -0,0 +1,12 @@
+package com.ecopulse.backend.service.budget;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record BudgetThresholdCrossedEvent(
+        UUID budgetId,
+        UUID userId,
+        int thresholdPercent,
+        BigDecimal usedCo2Grams,
+        BigDecimal limitCo2Grams
+) {}
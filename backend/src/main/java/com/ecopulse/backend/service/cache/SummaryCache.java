@@ -0,0 +1,254 @@
+package com.ecopulse.backend.service.cache;
+
+import com.ecopulse.backend.service.EmissionService;
+import com.ecopulse.backend.service.ingest.EmissionsWrittenEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+// Redis cache for emission summaries keyed by (user, from, to), open ends normalised to "-". Closed ends are
+// widened to whole minutes (whole hours for windows longer than a day) before keying and loading, so sliding
+// windows such as "the last hour", asked every few seconds, share one entry instead of minting a key per call.
+//
+// Stampedes are avoided twice over: entries are refreshed early with probability rising towards expiry
+// (XFetch, weighted by how long the last computation took), and concurrent misses on one instance share a
+// single load. Across instances a per-key refresh lock lets one node recompute while others keep serving
+// the still-valid entry.
+//
+// Committed writes delete exactly the cached windows that contain one of the new logs. A key joins the per-user
+// index as soon as its refresh lock is taken, so a write committing during the first load of a window finds it
+// and deletes the lock; the load's result is only stored while its lock token is still in place.
+@Service
+public class SummaryCache {
+    private static final Logger log = LoggerFactory.getLogger(SummaryCache.class);
+
+    private static final Duration TTL = Duration.ofSeconds(60);
+    private static final Duration REFRESH_LOCK_TTL = Duration.ofSeconds(10);
+    private static final double BETA = 1.0;
+    private static final String OPEN = "-";
+    private static final Duration MINUTE_GRAIN_MAX_SPAN = Duration.ofDays(1);
+    private static final Instant LATEST = Instant.parse("9999-12-31T23:59:59Z");
+
+    // KEYS: refresh lock, per-user key index. ARGV: lock token, lock ttl millis, entry key, index ttl millis.
+    private static final RedisScript<Long> LOCK_AND_INDEX = RedisScript.of("""
+            if not redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return 0 end
+            redis.call('sadd', KEYS[2], ARGV[3])
+            redis.call('pexpire', KEYS[2], ARGV[4])
+            return 1
+            """, Long.class);
+
+    // KEYS: entry, refresh lock, per-user key index. ARGV: lock token, entry JSON, ttl millis.
+    private static final RedisScript<Long> STORE_IF_LOCKED = RedisScript.of("""
+            if redis.call('get', KEYS[2]) ~= ARGV[1] then return 0 end
+            redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            redis.call('del', KEYS[2])
+            redis.call('sadd', KEYS[3], KEYS[1])
+            redis.call('pexpire', KEYS[3], ARGV[3])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final Map<String, CompletableFuture<EmissionService.Summary>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter earlyRefreshes;
+    private final Counter invalidations;
+
+    public SummaryCache(StringRedisTemplate redis, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.hits = result(meterRegistry, "hit");
+        this.misses = result(meterRegistry, "miss");
+        this.earlyRefreshes = result(meterRegistry, "early_refresh");
+        this.invalidations = Counter.builder("ecopulse.summary.cache.invalidations")
+                .description("Cached summary windows invalidated by new emission logs")
+                .register(meterRegistry);
+    }
+
+    // The loader receives the widened bounds and must compute the summary for exactly those.
+    public EmissionService.Summary get(
+            UUID userId, Instant from, Instant to, BiFunction<Instant, Instant, EmissionService.Summary> loader
+    ) {
+        var window = Window.of(from, to);
+        var key = key(userId, window);
+        var cached = read(key);
+        if (cached != null && !refreshEarly(cached)) {
+            hits.increment();
+            return cached.summary();
+        }
+        (cached == null ? misses : earlyRefreshes).increment();
+
+        var mine = new CompletableFuture<EmissionService.Summary>();
+        var leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            return cached != null ? cached.summary() : leader.join();
+        }
+
+        try {
+            var value = load(userId, key, () -> loader.apply(window.from(), window.to()), cached);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onWritten(EmissionsWrittenEvent event) {
+        var byUser = new HashMap<UUID, List<Instant>>();
+        for (var emissionLog : event.logs()) {
+            byUser.computeIfAbsent(emissionLog.getUser().getId(), id -> new ArrayList<>()).add(emissionLog.getCreatedAt());
+        }
+
+        try {
+            byUser.forEach(this::invalidate);
+        } catch (DataAccessException e) {
+            log.warn("Summary cache invalidation failed; entries expire within {}", TTL, e);
+        }
+    }
+
+    private void invalidate(UUID userId, List<Instant> writtenAt) {
+        var index = indexKey(userId);
+        var keys = redis.opsForSet().members(index);
+        if (keys == null || keys.isEmpty()) return;
+
+        var stale = new ArrayList<String>();
+        for (var key : keys) {
+            if (writtenAt.stream().anyMatch(at -> covers(key, at))) {
+                stale.add(key);
+                stale.add(lockKey(key));
+            }
+        }
+        if (stale.isEmpty()) return;
+
+        redis.delete(stale);
+        redis.opsForSet().remove(index, stale.toArray());
+        invalidations.increment(stale.size() / 2.0);
+    }
+
+    private EmissionService.Summary load(UUID userId, String key, Supplier<EmissionService.Summary> loader, Entry stale) {
+        var token = UUID.randomUUID().toString();
+        boolean locked;
+        try {
+            locked = Long.valueOf(1).equals(redis.execute(
+                    LOCK_AND_INDEX,
+                    List.of(lockKey(key), indexKey(userId)),
+                    token,
+                    String.valueOf(REFRESH_LOCK_TTL.toMillis()),
+                    key,
+                    String.valueOf(TTL.toMillis())
+            ));
+        } catch (DataAccessException e) {
+            return loader.get();
+        }
+        // Another instance is refreshing this window; the current entry is still within its TTL.
+        if (!locked && stale != null) return stale.summary();
+
+        var started = System.nanoTime();
+        var value = loader.get();
+        if (!locked) return value;
+
+        var computeMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        var entry = new Entry(value, computeMillis, System.currentTimeMillis() + TTL.toMillis());
+        try {
+            redis.execute(
+                    STORE_IF_LOCKED,
+                    List.of(key, lockKey(key), indexKey(userId)),
+                    token,
+                    objectMapper.writeValueAsString(entry),
+                    String.valueOf(TTL.toMillis())
+            );
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.debug("Could not store summary cache entry {}", key, e);
+        }
+        return value;
+    }
+
+    private Entry read(String key) {
+        try {
+            var json = redis.opsForValue().get(key);
+            return json == null ? null : objectMapper.readValue(json, Entry.class);
+        } catch (DataAccessException | JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    // XFetch: recompute early when now - delta * beta * ln(rand) reaches the expiry time.
+    private static boolean refreshEarly(Entry entry) {
+        var random = ThreadLocalRandom.current().nextDouble();
+        var gap = -entry.computeMillis() * BETA * Math.log(random);
+        return System.currentTimeMillis() + gap >= entry.expiresAtMillis();
+    }
+
+    private static boolean covers(String key, Instant at) {
+        var parts = key.split(":");
+        var from = parts[2];
+        var to = parts[3];
+        var micros = ChronoUnit.MICROS.between(Instant.EPOCH, at);
+        return (from.equals(OPEN) || micros >= Long.parseLong(from)) && (to.equals(OPEN) || micros <= Long.parseLong(to));
+    }
+
+    private static String key(UUID userId, Window window) {
+        return "summary:" + userId + ":" + bound(window.from()) + ":" + bound(window.to());
+    }
+
+    private static String bound(Instant instant) {
+        return instant == null ? OPEN : String.valueOf(ChronoUnit.MICROS.between(Instant.EPOCH, instant));
+    }
+
+    private static String lockKey(String key) {
+        return key + ":refresh";
+    }
+
+    private static String indexKey(UUID userId) {
+        return "summary-keys:" + userId;
+    }
+
+    private static Counter result(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ecopulse.summary.cache")
+                .description("Summary cache lookups by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    record Entry(EmissionService.Summary summary, long computeMillis, long expiresAtMillis) {}
+
+    // Inclusive bounds: from floored and to raised to the last microsecond of its grain.
+    record Window(Instant from, Instant to) {
+        static Window of(Instant from, Instant to) {
+            var longWindow = from != null && to != null && Duration.between(from, to).compareTo(MINUTE_GRAIN_MAX_SPAN) > 0;
+            var grain = longWindow ? ChronoUnit.HOURS : ChronoUnit.MINUTES;
+            var start = from == null ? null : from.truncatedTo(grain);
+            var end = to == null || !to.isBefore(LATEST) ? to : to.truncatedTo(grain).plus(1, grain).minus(1, ChronoUnit.MICROS);
+            return new Window(start, end);
+        }
+    }
+}
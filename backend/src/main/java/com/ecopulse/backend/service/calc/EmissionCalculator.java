@@ -0,0 +1,19 @@
+package com.ecopulse.backend.service.calc;
+
+import java.math.BigDecimal;
+
+public interface EmissionCalculator {
+    Result calculate(Inputs inputs);
+
+    record Inputs(
+            String model,
+            String region,
+            long tokens,
+            double runtimeSeconds,
+            BigDecimal modelPowerFactor,
+            BigDecimal regionCarbonIntensity,
+            BigDecimal waterFactor
+    ) {}
+
+    record Result(BigDecimal energyKwh, BigDecimal co2Grams, BigDecimal waterLiters, int greenScore) {}
+}
@@ -0,0 +1,175 @@
+package com.ecopulse.backend.service.calc;
+
+// Allocation-free kernel for the emission formula over scaled longs. Every step reproduces the BigDecimal
+// arithmetic of LocalEmissionCalculator.calculateExact bit for bit (scale 12 runtime hours, scale 8 HALF_UP
+// results). Products are formed in 128 bits before rounding; a step whose result does not fit in a long
+// returns UNREPRESENTABLE, which later steps pass through, and the caller then takes the BigDecimal path.
+// Nothing on this path throws, so the fallback costs no more than the BigDecimal code itself.
+public final class FixedPointEmissionMath {
+    public static final int SCALE = 8;
+    // Never a valid result: every result is a rounded magnitude with the sign applied afterwards.
+    public static final long UNREPRESENTABLE = Long.MIN_VALUE;
+    public static final int SCORE_UNREPRESENTABLE = -1;
+
+    private static final int HOURS_SCALE = 12;
+    private static final int MAX_RUNTIME_FRACTION_DIGITS = 6;
+    // Beyond 2^53 a double no longer identifies a unique integer, so decimal recovery is not exact.
+    private static final double MAX_EXACT_DOUBLE = 9.007199254740992E15;
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private FixedPointEmissionMath() {}
+
+    // BigDecimal.valueOf(runtimeSeconds) / 3600 at scale 12, HALF_UP. BigDecimal.valueOf uses the shortest
+    // decimal that round-trips to the double; for up to 6 fraction digits that is the smallest k for which
+    // round(x * 10^k) / 10^k == x. Longer measured durations read that decimal from Double.toString, which
+    // BigDecimal.valueOf is defined by.
+    public static long runtimeHoursE12(double runtimeSeconds) {
+        if (!Double.isFinite(runtimeSeconds)) return UNREPRESENTABLE;
+        for (int k = 0; k <= MAX_RUNTIME_FRACTION_DIGITS; k++) {
+            var scaled = runtimeSeconds * POW10[k];
+            if (Math.abs(scaled) >= MAX_EXACT_DOUBLE) break;
+            var digits = Math.round(scaled);
+            if ((double) digits / POW10[k] == runtimeSeconds) {
+                return multiplyDivideHalfUp(digits, POW10[HOURS_SCALE - k], 3600);
+            }
+        }
+        return runtimeHoursE12(Double.toString(runtimeSeconds));
+    }
+
+    // Same division for a Double.toString decimal: [-]digits[.digits][E[-]exp], at most 17 significant digits.
+    private static long runtimeHoursE12(String decimal) {
+        long unscaled = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        int exponent = 0;
+        var inFraction = false;
+        var negative = false;
+        for (int i = 0; i < decimal.length(); i++) {
+            var c = decimal.charAt(i);
+            if (c == '-') {
+                negative = true;
+            } else if (c == '.') {
+                inFraction = true;
+            } else if (c == 'E') {
+                exponent = Integer.parseInt(decimal, i + 1, decimal.length(), 10);
+                break;
+            } else {
+                if (++digits > 18) return UNREPRESENTABLE;
+                unscaled = unscaled * 10 + (c - '0');
+                if (inFraction) fractionDigits++;
+            }
+        }
+        if (negative) unscaled = -unscaled;
+
+        // value = unscaled × 10^-scale; hours at scale 12 = unscaled × 10^(12 - scale) / 3600.
+        var scale = fractionDigits - exponent;
+        if (scale <= HOURS_SCALE) {
+            if (HOURS_SCALE - scale >= POW10.length) return UNREPRESENTABLE;
+            return multiplyDivideHalfUp(unscaled, POW10[HOURS_SCALE - scale], 3600);
+        }
+        // |unscaled| < 10^18 < 0.5 × 3600 × 10^16, so anything smaller rounds to zero.
+        if (scale - HOURS_SCALE > 15) return 0;
+        return multiplyDivideHalfUp(unscaled, 1, 3600 * POW10[scale - HOURS_SCALE]);
+    }
+
+    // tokens × modelPowerFactor × runtimeHours, rounded to scale 8.
+    public static long energyE8(long tokens, long powerFactorUnscaled, int powerFactorScale, long runtimeHoursE12) {
+        if (runtimeHoursE12 == UNREPRESENTABLE) return UNREPRESENTABLE;
+        var product = multiply(tokens, powerFactorUnscaled);
+        if (product == UNREPRESENTABLE) return UNREPRESENTABLE;
+        return multiplyRescale(product, runtimeHoursE12, powerFactorScale + HOURS_SCALE);
+    }
+
+    // valueE8 × factor, rounded to scale 8. Used for CO2 (× intensity) and water (× water factor).
+    public static long multiplyE8(long valueE8, long factorUnscaled, int factorScale) {
+        if (valueE8 == UNREPRESENTABLE) return UNREPRESENTABLE;
+        return multiplyRescale(valueE8, factorUnscaled, SCALE + factorScale);
+    }
+
+    // Same heuristic as LocalEmissionCalculator.greenScore: CO2 per token at scale 12, HALF_UP, times 1000.
+    // Returns SCORE_UNREPRESENTABLE when CO2 per token is beyond exact double range; the reference formula's
+    // int narrowing of Math.round then decides the score, so the caller computes it with BigDecimal.
+    public static int greenScore(long co2E8, long tokens) {
+        var denom = Math.max(1L, tokens);
+        var perTokenE12 = multiplyDivideHalfUp(co2E8, POW10[HOURS_SCALE - SCALE], denom);
+        if (perTokenE12 == UNREPRESENTABLE || Math.abs(perTokenE12) >= (1L << 53)) return SCORE_UNREPRESENTABLE;
+        // perTokenE12 × 1000 at scale 12 is perTokenE12 / 10^9; both operands are exact doubles, so the
+        // division is correctly rounded exactly like BigDecimal.doubleValue().
+        var x = perTokenE12 / 1e9;
+        var score = (int) Math.round(100 - ((x - 50) / (500 - 50)) * 100);
+        return Math.max(0, Math.min(100, score));
+    }
+
+    // a × b at the given scale, rounded HALF_UP to scale 8.
+    private static long multiplyRescale(long a, long b, int scale) {
+        if (scale <= SCALE) {
+            var product = multiply(a, b);
+            return product == UNREPRESENTABLE ? UNREPRESENTABLE : multiply(product, POW10[SCALE - scale]);
+        }
+        if (scale - SCALE >= POW10.length) return UNREPRESENTABLE;
+        return multiplyDivideHalfUp(a, b, POW10[scale - SCALE]);
+    }
+
+    // a × b, or UNREPRESENTABLE when the product does not fit in a long.
+    private static long multiply(long a, long b) {
+        var lo = a * b;
+        var hi = Math.multiplyHigh(a, b);
+        if (hi != (lo >> 63) || lo == UNREPRESENTABLE) return UNREPRESENTABLE;
+        return lo;
+    }
+
+    // a × b / divisor with HALF_UP rounding, computed over the exact 128-bit product.
+    private static long multiplyDivideHalfUp(long a, long b, long divisor) {
+        if (a == Long.MIN_VALUE || b == Long.MIN_VALUE) return UNREPRESENTABLE;
+        var negative = (a < 0) != (b < 0);
+        a = Math.abs(a);
+        b = Math.abs(b);
+
+        var lo = a * b;
+        var hi = Math.unsignedMultiplyHigh(a, b);
+        if (Long.compareUnsigned(hi, divisor) >= 0) return UNREPRESENTABLE;
+
+        var quotient = hi == 0 && lo >= 0 ? lo / divisor : divideUnsigned128(hi, lo, divisor);
+        var remainder = lo - quotient * divisor;
+        if (Long.compareUnsigned(remainder, divisor - remainder) >= 0) quotient++;
+        if (quotient < 0) return UNREPRESENTABLE;
+        return negative ? -quotient : quotient;
+    }
+
+    // Unsigned (hi:lo) / divisor for hi < divisor (Hacker's Delight divlu, 32-bit digits).
+    private static long divideUnsigned128(long hi, long lo, long divisor) {
+        final long base = 1L << 32;
+        var shift = Long.numberOfLeadingZeros(divisor);
+        divisor <<= shift;
+        var vn1 = divisor >>> 32;
+        var vn0 = divisor & 0xFFFFFFFFL;
+
+        var un32 = (hi << shift) | (shift == 0 ? 0 : lo >>> (64 - shift));
+        var un10 = lo << shift;
+        var un1 = un10 >>> 32;
+        var un0 = un10 & 0xFFFFFFFFL;
+
+        var q1 = Long.divideUnsigned(un32, vn1);
+        var rhat = un32 - q1 * vn1;
+        while (Long.compareUnsigned(q1, base) >= 0 || Long.compareUnsigned(q1 * vn0, base * rhat + un1) > 0) {
+            q1--;
+            rhat += vn1;
+            if (Long.compareUnsigned(rhat, base) >= 0) break;
+        }
+
+        var un21 = un32 * base + un1 - q1 * divisor;
+        var q0 = Long.divideUnsigned(un21, vn1);
+        rhat = un21 - q0 * vn1;
+        while (Long.compareUnsigned(q0, base) >= 0 || Long.compareUnsigned(q0 * vn0, base * rhat + un0) > 0) {
+            q0--;
+            rhat += vn1;
+            if (Long.compareUnsigned(rhat, base) >= 0) break;
+        }
+
+        return q1 * base + q0;
+    }
+}
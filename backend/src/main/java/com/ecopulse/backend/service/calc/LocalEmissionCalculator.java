@@ -0,0 +1,85 @@
+package com.ecopulse.backend.service.calc;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Deterministic in-JVM implementation of the emission formula; the ai-engine mirrors the same arithmetic.
+// The hot path runs on FixedPointEmissionMath and only converts to BigDecimal at the boundary; inputs that
+// overflow the long kernel take the equivalent BigDecimal path, decided by checks rather than exceptions.
+public class LocalEmissionCalculator implements EmissionCalculator {
+
+    @Override
+    public Result calculate(Inputs inputs) {
+        var result = calculateFixedPoint(inputs);
+        return result != null ? result : calculateExact(inputs);
+    }
+
+    // Null when an input or intermediate value does not fit the long kernel.
+    static Result calculateFixedPoint(Inputs inputs) {
+        if (!fitsLong(inputs.modelPowerFactor()) || !fitsLong(inputs.regionCarbonIntensity()) || !fitsLong(inputs.waterFactor())) {
+            return null;
+        }
+        var hours = FixedPointEmissionMath.runtimeHoursE12(inputs.runtimeSeconds());
+        var energy = FixedPointEmissionMath.energyE8(
+                inputs.tokens(), unscaled(inputs.modelPowerFactor()), scale(inputs.modelPowerFactor()), hours
+        );
+        var co2 = FixedPointEmissionMath.multiplyE8(
+                energy, unscaled(inputs.regionCarbonIntensity()), scale(inputs.regionCarbonIntensity())
+        );
+        var water = FixedPointEmissionMath.multiplyE8(
+                energy, unscaled(inputs.waterFactor()), scale(inputs.waterFactor())
+        );
+        if (co2 == FixedPointEmissionMath.UNREPRESENTABLE || water == FixedPointEmissionMath.UNREPRESENTABLE) return null;
+        var co2Grams = BigDecimal.valueOf(co2, FixedPointEmissionMath.SCALE);
+        var score = FixedPointEmissionMath.greenScore(co2, inputs.tokens());
+        if (score == FixedPointEmissionMath.SCORE_UNREPRESENTABLE) score = greenScore(co2Grams, inputs.tokens());
+        return new Result(
+                BigDecimal.valueOf(energy, FixedPointEmissionMath.SCALE),
+                co2Grams,
+                BigDecimal.valueOf(water, FixedPointEmissionMath.SCALE),
+                score
+        );
+    }
+
+    public static Result calculateExact(Inputs inputs) {
+        // Formula (given):
+        // Energy (kWh) = Tokens × ModelPowerFactor × Runtime
+        // CO2 (g) = Energy × RegionCarbonIntensity
+        // Water (L) = Energy × WaterFactor
+        // We interpret runtime as hours, derived from seconds.
+
+        var runtimeHours = BigDecimal.valueOf(inputs.runtimeSeconds()).divide(BigDecimal.valueOf(3600), 12, RoundingMode.HALF_UP);
+        var energy = BigDecimal.valueOf(inputs.tokens())
+                .multiply(inputs.modelPowerFactor())
+                .multiply(runtimeHours)
+                .setScale(8, RoundingMode.HALF_UP);
+
+        var co2 = energy.multiply(inputs.regionCarbonIntensity()).setScale(8, RoundingMode.HALF_UP);
+        var water = energy.multiply(inputs.waterFactor()).setScale(8, RoundingMode.HALF_UP);
+        return new Result(energy, co2, water, greenScore(co2, inputs.tokens()));
+    }
+
+    // Up to 18 digits always fit; negative scales and wider values are rare enough to leave to the BigDecimal path.
+    private static boolean fitsLong(BigDecimal value) {
+        return value.scale() >= 0 && value.precision() <= 18;
+    }
+
+    private static long unscaled(BigDecimal value) {
+        return value.unscaledValue().longValue();
+    }
+
+    private static int scale(BigDecimal value) {
+        return Math.max(0, value.scale());
+    }
+
+    public static int greenScore(BigDecimal co2Grams, long tokens) {
+        // Simple heuristic score: penalize high CO2 per 1k tokens.
+        // Target <= 50g per 1k tokens => near 100; >= 500g per 1k tokens => near 0.
+        var denom = Math.max(1L, tokens);
+        var per1k = co2Grams.divide(BigDecimal.valueOf(denom), 12, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(1000));
+        var x = per1k.doubleValue();
+        var score = (int) Math.round(100 - ((x - 50) / (500 - 50)) * 100);
+        return Math.max(0, Math.min(100, score));
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecopulse.backend.service.calc;
+
+import com.ecopulse.backend.client.AiEngineClient;
+
+// Keeps the ai-engine as the system of record; the local formula only covers ai-engine outages.
+public class RemoteEmissionCalculator implements EmissionCalculator {
+    private final AiEngineClient aiEngineClient;
+    private final EmissionCalculator fallback;
+
+    public RemoteEmissionCalculator(AiEngineClient aiEngineClient, EmissionCalculator fallback) {
+        this.aiEngineClient = aiEngineClient;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Result calculate(Inputs inputs) {
+        return aiEngineClient.calculateEmissions(toRequest(inputs))
+                .filter(r -> r.energyKwh() != null && r.co2Grams() != null && r.waterLiters() != null)
+                .map(r -> new Result(
+                        r.energyKwh(),
+                        r.co2Grams(),
+                        r.waterLiters(),
+                        r.greenScore() != null ? r.greenScore() : LocalEmissionCalculator.greenScore(r.co2Grams(), inputs.tokens())
+                ))
+                .orElseGet(() -> fallback.calculate(inputs));
+    }
+
+    static AiEngineClient.EmissionCalcRequest toRequest(Inputs inputs) {
+        return new AiEngineClient.EmissionCalcRequest(
+                inputs.model(),
+                inputs.region(),
+                inputs.tokens(),
+                inputs.runtimeSeconds(),
+                inputs.modelPowerFactor(),
+                inputs.regionCarbonIntensity(),
+                inputs.waterFactor()
+        );
+    }
+}
@@ -0,0 +1,105 @@
+package com.ecopulse.backend.service.calc;
+
+import com.ecopulse.backend.client.AiEngineClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Serves results from the primary calculator and, for a sample of calls, asks the ai-engine for the same
+// calculation in the background. Divergence is only recorded as metrics; it never affects the caller.
+public class ShadowVerifyingEmissionCalculator implements EmissionCalculator {
+    private final EmissionCalculator primary;
+    private final AiEngineClient aiEngineClient;
+    private final double sampleRate;
+    private final Semaphore inFlight;
+
+    private final Counter samples;
+    private final Counter matches;
+    private final Counter mismatches;
+    private final Counter errors;
+    private final Counter empty;
+    private final Counter skipped;
+    private final DistributionSummary co2Divergence;
+
+    public ShadowVerifyingEmissionCalculator(
+            EmissionCalculator primary,
+            AiEngineClient aiEngineClient,
+            double sampleRate,
+            int maxInFlight,
+            MeterRegistry meterRegistry
+    ) {
+        this.primary = primary;
+        this.aiEngineClient = aiEngineClient;
+        this.sampleRate = sampleRate;
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+
+        this.samples = outcome(meterRegistry, "sampled");
+        this.matches = outcome(meterRegistry, "match");
+        this.mismatches = outcome(meterRegistry, "mismatch");
+        this.errors = outcome(meterRegistry, "error");
+        this.empty = outcome(meterRegistry, "empty");
+        this.skipped = outcome(meterRegistry, "skipped");
+        this.co2Divergence = DistributionSummary.builder("ecopulse.calculator.shadow.co2.divergence")
+                .description("Absolute CO2 difference (grams) between local and ai-engine results")
+                .baseUnit("grams")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Result calculate(Inputs inputs) {
+        var result = primary.calculate(inputs);
+        if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            shadow(inputs, result);
+        }
+        return result;
+    }
+
+    private void shadow(Inputs inputs, Result local) {
+        // Bounded so a slow ai-engine cannot accumulate unbounded pending comparisons.
+        if (!inFlight.tryAcquire()) {
+            skipped.increment();
+            return;
+        }
+        samples.increment();
+        // Every sample ends in exactly one outcome; an empty response (no body) would otherwise go uncounted
+        // and bias the mismatch rate.
+        aiEngineClient.calculateEmissionsAsync(RemoteEmissionCalculator.toRequest(inputs))
+                .switchIfEmpty(Mono.fromRunnable(empty::increment))
+                .doFinally(signal -> inFlight.release())
+                .subscribe(
+                        remote -> compare(local, remote),
+                        error -> errors.increment()
+                );
+    }
+
+    private void compare(Result local, AiEngineClient.EmissionCalcResponse remote) {
+        if (remote.co2Grams() == null) {
+            errors.increment();
+            return;
+        }
+        co2Divergence.record(local.co2Grams().subtract(remote.co2Grams()).abs().doubleValue());
+
+        var same = sameValue(local.energyKwh(), remote.energyKwh())
+                && sameValue(local.co2Grams(), remote.co2Grams())
+                && sameValue(local.waterLiters(), remote.waterLiters())
+                && (remote.greenScore() == null || Objects.equals(local.greenScore(), remote.greenScore()));
+        (same ? matches : mismatches).increment();
+    }
+
+    private static boolean sameValue(BigDecimal a, BigDecimal b) {
+        return a != null && b != null && a.compareTo(b) == 0;
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ecopulse.calculator.shadow")
+                .description("Shadow verification of local emission calculations against the ai-engine")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
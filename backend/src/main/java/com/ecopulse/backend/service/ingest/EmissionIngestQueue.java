@@ -0,0 +1,316 @@
+package com.ecopulse.backend.service.ingest;
+
+import com.ecopulse.backend.config.BackendProperties;
+import com.ecopulse.backend.model.EmissionLog;
+import com.ecopulse.backend.model.IdempotencyKey;
+import com.ecopulse.backend.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Write-behind queue for asynchronous ingest. Request threads hand over fully computed logs and return
+// immediately; a single writer thread drains the queue and commits in groups of groupSize records or
+// every flushIntervalMs, whichever comes first.
+//
+// A group that still fails after maxCommitAttempts is spilled to a dead-letter file under deadLetterDir, and
+// so is anything left in the queue at shutdown. While commits keep failing the queue refuses new records
+// (429) rather than acknowledging more than it can write; the writer retries the dead letters periodically
+// and on the next start, and accepts again once one of them commits.
+//
+// Only a duplicate id or idempotency key is dropped on write. A record violating any other constraint can
+// never be written and goes to the rejected dead-letter file instead.
+@Component
+public class EmissionIngestQueue implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(EmissionIngestQueue.class);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+    private static final long MAX_RETRY_BACKOFF_MS = 5000;
+    private static final long REPLAY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final String UNIQUE_VIOLATION = "23505";
+    // The legacy table's primary key, or a partition's once emission_logs is partitioned.
+    private static final Pattern PRIMARY_KEY = Pattern.compile("emission_logs(_p\\d{4}_\\d{2}|_default)?_pkey");
+
+    private final EmissionWriter emissionWriter;
+    private final IdempotencyService idempotencyService;
+    private final boolean enabled;
+    private final int groupSize;
+    private final long flushIntervalNanos;
+    private final int maxCommitAttempts;
+    private final BlockingQueue<EmissionLog> queue;
+    private final IngestDeadLetterFile deadLetters;
+
+    private final Timer commitLatency;
+    private final DistributionSummary commitSize;
+    private final Counter rejected;
+    private final Counter spilled;
+    private final Counter unwritable;
+
+    private volatile boolean running;
+    // Set when a group had to be spilled; cleared by the next successful commit.
+    private volatile boolean failing;
+    private long lastReplayNanos;
+    private Thread writerThread;
+
+    public EmissionIngestQueue(
+            EmissionWriter emissionWriter,
+            IdempotencyService idempotencyService,
+            UserRepository userRepository,
+            ObjectMapper objectMapper,
+            BackendProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        var async = properties.ingest().async();
+        this.emissionWriter = emissionWriter;
+        this.idempotencyService = idempotencyService;
+        this.enabled = async.enabled();
+        this.groupSize = Math.max(1, async.groupSize());
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, async.flushIntervalMs()));
+        this.maxCommitAttempts = Math.max(1, async.maxCommitAttempts());
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, async.queueCapacity()));
+        this.deadLetters = new IngestDeadLetterFile(Path.of(async.deadLetterDir()), objectMapper, userRepository);
+
+        Gauge.builder("ecopulse.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Emission logs acknowledged but not yet committed")
+                .register(meterRegistry);
+        this.commitLatency = Timer.builder("ecopulse.ingest.commit.latency")
+                .description("Time to commit one group of queued emission logs")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.commitSize = DistributionSummary.builder("ecopulse.ingest.commit.size")
+                .description("Records per group commit")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("ecopulse.ingest.rejected")
+                .description("Submissions rejected because the ingest queue was full")
+                .register(meterRegistry);
+        this.spilled = Counter.builder("ecopulse.ingest.dead_lettered")
+                .description("Acknowledged emission logs spilled to the dead-letter file instead of committed")
+                .register(meterRegistry);
+        this.unwritable = Counter.builder("ecopulse.ingest.unwritable")
+                .description("Acknowledged emission logs the database refused, moved to the rejected dead-letter file")
+                .register(meterRegistry);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public void submit(EmissionLog emissionLog) {
+        if (!running) {
+            throw new IngestQueueFullException("Ingest queue is not accepting records");
+        }
+        if (failing) {
+            rejected.increment();
+            throw new IngestQueueFullException("Ingest writer cannot commit right now");
+        }
+        if (!queue.offer(emissionLog)) {
+            rejected.increment();
+            throw new IngestQueueFullException("Ingest queue is full");
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) return;
+        running = true;
+        writerThread = Thread.ofPlatform()
+                .name("emission-ingest-writer")
+                .daemon(true)
+                .start(this::drainLoop);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) return;
+        // Stop accepting, then let the writer drain everything that was already acknowledged.
+        running = false;
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT.toMillis());
+            if (writerThread.isAlive()) {
+                // Interrupting a retry backoff makes the writer spill its current group.
+                writerThread.interrupt();
+                writerThread.join(1000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        var remaining = new ArrayList<EmissionLog>();
+        queue.drainTo(remaining);
+        spill(remaining);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before and stop after the embedded web server, so no request can enqueue once draining begins.
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        var batch = new ArrayList<EmissionLog>(groupSize);
+        replayDeadLetters();
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    if (running && System.nanoTime() - lastReplayNanos >= REPLAY_INTERVAL_NANOS) replayDeadLetters();
+                    continue;
+                }
+                batch.add(first);
+                fillGroup(batch);
+                commit(batch);
+            } catch (InterruptedException e) {
+                spill(batch);
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Once a group fails, the rest of the file is spilled again without further attempts.
+    private void replayDeadLetters() {
+        lastReplayNanos = System.nanoTime();
+        if (!deadLetters.hasPending()) return;
+        try {
+            for (var file : deadLetters.claim()) {
+                var logs = deadLetters.read(file);
+                log.info("Replaying {} dead-lettered emission logs from {}", logs.size(), file);
+                var gaveUp = false;
+                for (int from = 0; from < logs.size(); from += groupSize) {
+                    var group = logs.subList(from, Math.min(logs.size(), from + groupSize));
+                    if (gaveUp) {
+                        spill(group);
+                    } else {
+                        commit(group);
+                        gaveUp = failing;
+                    }
+                }
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            log.error("Could not replay ingest dead letters in {}", deadLetters.spillFile().getParent(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fillGroup(List<EmissionLog> batch) throws InterruptedException {
+        var deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < groupSize) {
+            queue.drainTo(batch, groupSize - batch.size());
+            if (batch.size() >= groupSize) return;
+
+            var remaining = deadline - System.nanoTime();
+            if (remaining <= 0) return;
+            var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) return;
+            batch.add(next);
+        }
+    }
+
+    // A queued record whose idempotency key was committed in the meantime, or a replayed dead letter that was
+    // already written, fails the whole group; write the group record by record and drop only the duplicates.
+    private void commitIndividually(List<EmissionLog> batch) throws InterruptedException {
+        for (var emissionLog : batch) {
+            try {
+                emissionWriter.write(List.of(emissionLog));
+            } catch (DataIntegrityViolationException e) {
+                if (isDuplicate(e)) {
+                    log.debug("Dropping queued emission log {} that was already written or reuses an idempotency key", emissionLog.getId());
+                    if (emissionLog.getIdempotencyKey() != null) {
+                        idempotencyService.repointQueued(emissionLog.getUser().getId(), emissionLog.getIdempotencyKey(), emissionLog.getId());
+                    }
+                } else {
+                    log.error("Emission log {} violates a database constraint, moving it to {}", emissionLog.getId(), deadLetters.rejectedFile(), e);
+                    reject(emissionLog);
+                }
+            } catch (RuntimeException e) {
+                commit(List.of(emissionLog));
+            }
+        }
+    }
+
+    private static boolean isDuplicate(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                var constraint = violation.getConstraintName();
+                return UNIQUE_VIOLATION.equals(violation.getSQLState()) && constraint != null
+                        && (constraint.equals(IdempotencyKey.USER_KEY_INDEX) || PRIMARY_KEY.matcher(constraint).matches());
+            }
+        }
+        return false;
+    }
+
+    private void commit(List<EmissionLog> batch) throws InterruptedException {
+        // Records were already acknowledged, so retry with backoff and spill them if that is not enough. While
+        // already failing, a single attempt per group is made so the backlog reaches the dead-letter file quickly.
+        var attempts = failing ? 1 : maxCommitAttempts;
+        long backoffMs = 100;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                var started = System.nanoTime();
+                emissionWriter.write(batch);
+                commitLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                commitSize.record(batch.size());
+                failing = false;
+                return;
+            } catch (DataIntegrityViolationException e) {
+                commitIndividually(batch);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= attempts) {
+                    log.error("Group commit of {} emission logs failed {} times, spilling to {}", batch.size(), attempt, deadLetters.spillFile(), e);
+                    failing = true;
+                    spill(batch);
+                    return;
+                }
+                log.warn("Group commit of {} emission logs failed, retrying in {} ms", batch.size(), backoffMs, e);
+                Thread.sleep(backoffMs);
+                backoffMs = Math.min(MAX_RETRY_BACKOFF_MS, backoffMs * 2);
+            }
+        }
+    }
+
+    private void reject(EmissionLog emissionLog) {
+        unwritable.increment();
+        try {
+            deadLetters.reject(List.of(emissionLog));
+        } catch (RuntimeException e) {
+            log.error("Could not move emission log {} to {}; it is lost", emissionLog.getId(), deadLetters.rejectedFile(), e);
+        }
+    }
+
+    private void spill(List<EmissionLog> logs) {
+        if (logs.isEmpty()) return;
+        try {
+            deadLetters.spill(logs);
+            spilled.increment(logs.size());
+        } catch (RuntimeException e) {
+            log.error("Could not spill {} acknowledged emission logs to {}; they are lost", logs.size(), deadLetters.spillFile(), e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecopulse.backend.service.ingest;
+
+import com.ecopulse.backend.model.EmissionLog;
+import com.ecopulse.backend.model.GreenScore;
+import com.ecopulse.backend.model.IdempotencyKey;
+import com.ecopulse.backend.repository.EmissionRepository;
+import com.ecopulse.backend.repository.GreenScoreRepository;
+import com.ecopulse.backend.repository.IdempotencyKeyRepository;
+import com.ecopulse.backend.service.BudgetService;
+import com.ecopulse.backend.service.rollup.EmissionRollupService;
+import com.ecopulse.backend.service.sketch.EmissionSketchService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+public class EmissionWriter {
+    private final EmissionRepository emissionRepository;
+    private final GreenScoreRepository greenScoreRepository;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final IdempotencyService idempotencyService;
+    private final EmissionRollupService rollupService;
+    private final EmissionSketchService sketchService;
+    private final BudgetService budgetService;
+    private final ApplicationEventPublisher events;
+
+    public EmissionWriter(
+            EmissionRepository emissionRepository,
+            GreenScoreRepository greenScoreRepository,
+            IdempotencyKeyRepository idempotencyKeyRepository,
+            IdempotencyService idempotencyService,
+            EmissionRollupService rollupService,
+            EmissionSketchService sketchService,
+            BudgetService budgetService,
+            ApplicationEventPublisher events
+    ) {
+        this.emissionRepository = emissionRepository;
+        this.greenScoreRepository = greenScoreRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.idempotencyService = idempotencyService;
+        this.rollupService = rollupService;
+        this.sketchService = sketchService;
+        this.budgetService = budgetService;
+        this.events = events;
+    }
+
+    // Single transaction per call; with hibernate.jdbc.batch_size set, both tables are flushed as JDBC batches.
+    @Transactional
+    public List<EmissionLog> write(List<EmissionLog> logs) {
+        var writtenAt = Instant.now();
+        logs.forEach(log -> log.markWritten(writtenAt));
+        var saved = emissionRepository.saveAll(logs);
+
+        var scores = new ArrayList<GreenScore>(saved.size());
+        var keys = new ArrayList<IdempotencyKey>();
+        var keysByUser = new HashMap<UUID, List<String>>();
+        for (var log : saved) {
+            scores.add(new GreenScore(log.getUser(), log.getGreenScore(), "derived from emissions"));
+            if (log.getIdempotencyKey() != null) {
+                keys.add(new IdempotencyKey(log.getUser().getId(), log.getIdempotencyKey(), log.getId(), log.getCreatedAt()));
+                keysByUser.computeIfAbsent(log.getUser().getId(), id -> new ArrayList<>()).add(log.getIdempotencyKey());
+                // Remembering a key whose write later rolls back only costs one extra lookup for that key.
+                idempotencyService.remember(log.getUser().getId(), log.getIdempotencyKey());
+            }
+        }
+        greenScoreRepository.saveAll(scores);
+        keysByUser.forEach(idempotencyService::releaseExpired);
+        // A key used concurrently (or by another instance) violates the unique index here and rolls back the write.
+        idempotencyKeyRepository.saveAll(keys);
+        rollupService.record(saved);
+        sketchService.record(saved);
+        budgetService.recordUsage(saved);
+        events.publishEvent(new EmissionsWrittenEvent(saved));
+        return saved;
+    }
+}
@@ -0,0 +1,9 @@
+package com.ecopulse.backend.service.ingest;
+
+import com.ecopulse.backend.model.EmissionLog;
+
+import java.util.List;
+
+// Published by EmissionWriter inside the write transaction; consume with @TransactionalEventListener so
+// listeners only see committed logs.
+public record EmissionsWrittenEvent(List<EmissionLog> logs) {}
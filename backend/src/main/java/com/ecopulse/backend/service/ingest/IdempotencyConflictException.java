@@ -0,0 +1,7 @@
+package com.ecopulse.backend.service.ingest;
+
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
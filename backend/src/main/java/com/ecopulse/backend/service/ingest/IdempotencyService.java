@@ -0,0 +1,204 @@
+package com.ecopulse.backend.service.ingest;
+
+import com.ecopulse.backend.config.BackendProperties;
+import com.ecopulse.backend.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Duplicate detection for client-supplied idempotency keys. A Bloom filter answers the common "never seen"
+// case in memory; only possible hits go to the database. The unique index on idempotency_keys stays the
+// source of truth, so keys written by other instances or before a restart are still caught on insert.
+//
+// A key is live for the retention period. Expired rows stay until expire() purges them, so writes delete an
+// expired row for the same key before inserting, and the lookup after a lost insert race ignores age.
+//
+// Asynchronous ingest acknowledges before anything is written, so it also claims keys in Redis until the
+// write lands: a concurrent retry gets the claimed id back instead of an id the writer would later drop.
+@Service
+public class IdempotencyService {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    // KEYS: claim. ARGV: dropped log id, stored log id or "" to release, ttl millis.
+    private static final RedisScript<Long> REPOINT_CLAIM = RedisScript.of("""
+            if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end
+            if ARGV[2] == '' then
+                redis.call('del', KEYS[1])
+            else
+                redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            end
+            return 1
+            """, Long.class);
+
+    private final IdempotencyKeyRepository repository;
+    private final StringRedisTemplate redis;
+    private final Duration retention;
+
+    private final Counter bloomMisses;
+    private final Counter lookups;
+    private final Counter duplicates;
+
+    // A key lives in the filter for between one and two retention periods.
+    private final RotatingBloomFilter filter;
+
+    public IdempotencyService(
+            IdempotencyKeyRepository repository,
+            StringRedisTemplate redis,
+            BackendProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        var config = properties.ingest().idempotency();
+        this.repository = repository;
+        this.redis = redis;
+        this.retention = config.retention();
+        this.filter = new RotatingBloomFilter(retention, () -> new BloomFilter(config.expectedKeys(), config.falsePositiveRate()), Instant.now());
+
+        this.bloomMisses = outcome(meterRegistry, "bloom_miss");
+        this.lookups = outcome(meterRegistry, "lookup");
+        this.duplicates = outcome(meterRegistry, "duplicate");
+    }
+
+    // Returns key -> stored emission log id for every key that was already used by this user.
+    public Map<String, UUID> findExisting(UUID userId, Collection<String> keys) {
+        var candidates = keys.stream()
+                .filter(key -> {
+                    var maybe = mightContain(userId, key);
+                    if (!maybe) bloomMisses.increment();
+                    return maybe;
+                })
+                .toList();
+        if (candidates.isEmpty()) return Map.of();
+
+        lookups.increment();
+        return lookup(userId, candidates);
+    }
+
+    // Authoritative check that skips the filter; used after an insert lost a race on the unique index. Any
+    // stored row counts here, whatever its age, since it is what the insert collided with.
+    public Map<String, UUID> findExistingUnfiltered(UUID userId, Collection<String> keys) {
+        if (keys.isEmpty()) return Map.of();
+        lookups.increment();
+        var found = new HashMap<String, UUID>();
+        for (var k : repository.findByUserIdAndKeyIn(userId, keys)) {
+            found.put(k.getKey(), k.getEmissionLogId());
+        }
+        return found;
+    }
+
+    // Frees expired keys about to be reused, within the writing transaction.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releaseExpired(UUID userId, Collection<String> keys) {
+        repository.deleteExpired(userId, keys, cutoff());
+    }
+
+    // Returns the id of the log already holding the key, or null once this log holds it. Without Redis the
+    // claim is skipped and the unique index stays the only guard.
+    public UUID claimQueued(UUID userId, String key, UUID emissionLogId) {
+        var claim = claimKey(userId, key);
+        try {
+            if (Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(claim, emissionLogId.toString(), retention))) {
+                return null;
+            }
+            var holder = redis.opsForValue().get(claim);
+            return holder == null ? null : UUID.fromString(holder);
+        } catch (DataAccessException e) {
+            log.debug("Could not claim idempotency key for queued ingest", e);
+            return null;
+        }
+    }
+
+    // Undoes a claim whose log was never queued.
+    public void releaseQueued(UUID userId, String key) {
+        try {
+            redis.delete(claimKey(userId, key));
+        } catch (DataAccessException e) {
+            log.debug("Could not release idempotency key claim", e);
+        }
+    }
+
+    // The writer dropped a queued log as a duplicate. A claim still naming it is pointed at the log holding the
+    // key in the database, so retries get an id that exists rather than another queued log that would be
+    // dropped too; with no stored holder the claim is released.
+    public void repointQueued(UUID userId, String key, UUID droppedLogId) {
+        var stored = findExistingUnfiltered(userId, List.of(key)).get(key);
+        if (stored != null) remember(userId, key);
+        try {
+            redis.execute(REPOINT_CLAIM, List.of(claimKey(userId, key)),
+                    droppedLogId.toString(), stored == null ? "" : stored.toString(), String.valueOf(retention.toMillis()));
+        } catch (DataAccessException e) {
+            log.debug("Could not repoint idempotency key claim", e);
+        }
+    }
+
+    public void remember(UUID userId, String key) {
+        filter.put(entry(userId, key));
+    }
+
+    public void recordDuplicate() {
+        duplicates.increment();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        try (var keys = repository.streamCreatedAfter(cutoff())) {
+            keys.forEach(k -> filter.put(entry(k.getUserId(), k.getKey())));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "PT10M", initialDelayString = "PT10M")
+    @Transactional
+    public void expire() {
+        repository.deleteCreatedBefore(cutoff());
+        filter.rotateIfDue(Instant.now());
+    }
+
+    private Map<String, UUID> lookup(UUID userId, Collection<String> keys) {
+        var found = new HashMap<String, UUID>();
+        for (var k : repository.findByUserIdAndKeyInAndCreatedAtAfter(userId, keys, cutoff())) {
+            found.put(k.getKey(), k.getEmissionLogId());
+        }
+        return found;
+    }
+
+    private boolean mightContain(UUID userId, String key) {
+        return filter.mightContain(entry(userId, key));
+    }
+
+    private Instant cutoff() {
+        return Instant.now().minus(retention);
+    }
+
+    private static String entry(UUID userId, String key) {
+        return userId + ":" + key;
+    }
+
+    private static String claimKey(UUID userId, String key) {
+        return "idempotency-claim:" + entry(userId, key);
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ecopulse.ingest.idempotency")
+                .description("Idempotency key checks by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
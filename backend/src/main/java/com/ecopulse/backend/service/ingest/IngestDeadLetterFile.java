@@ -0,0 +1,164 @@
+package com.ecopulse.backend.service.ingest;
+
+import com.ecopulse.backend.model.EmissionLog;
+import com.ecopulse.backend.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Acknowledged logs that could not be committed, one JSON object per line. Appends are fsynced before they
+// return, so a spilled record survives a crash. Replay claims the whole file by renaming it; records that
+// fail again are spilled to a fresh file. Writing a replayed record twice is harmless: its id is the primary
+// key, so the second insert is dropped as a duplicate.
+//
+// Records the database refuses outright (a deleted user, a value out of range) would fail every replay, so
+// they go to a separate rejected file that replay never claims. Once the cause is fixed, an operator moves it
+// back to the spill file name to have it replayed.
+class IngestDeadLetterFile {
+    private static final String SPILL_FILE = "emission-ingest.ndjson";
+    private static final String REJECTED_FILE = "emission-ingest.rejected.ndjson";
+    private static final String REPLAY_PREFIX = "emission-ingest.replay-";
+
+    private final Path dir;
+    private final ObjectMapper objectMapper;
+    private final UserRepository userRepository;
+
+    IngestDeadLetterFile(Path dir, ObjectMapper objectMapper, UserRepository userRepository) {
+        this.dir = dir;
+        this.objectMapper = objectMapper;
+        this.userRepository = userRepository;
+    }
+
+    Path spillFile() {
+        return dir.resolve(SPILL_FILE);
+    }
+
+    Path rejectedFile() {
+        return dir.resolve(REJECTED_FILE);
+    }
+
+    synchronized void spill(List<EmissionLog> logs) {
+        append(spillFile(), logs);
+    }
+
+    synchronized void reject(List<EmissionLog> logs) {
+        append(rejectedFile(), logs);
+    }
+
+    private void append(Path file, List<EmissionLog> logs) {
+        if (logs.isEmpty()) return;
+        try {
+            Files.createDirectories(dir);
+            var out = new StringBuilder();
+            for (var log : logs) {
+                out.append(objectMapper.writeValueAsString(Entry.of(log))).append('\n');
+            }
+            try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                var bytes = ByteBuffer.wrap(out.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) channel.write(bytes);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    boolean hasPending() {
+        try (var files = pendingFiles()) {
+            return files.findAny().isPresent();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Files left by an earlier replay that did not finish are claimed again.
+    synchronized List<Path> claim() throws IOException {
+        var claimed = new ArrayList<Path>();
+        if (Files.exists(spillFile())) {
+            var target = dir.resolve(REPLAY_PREFIX + System.currentTimeMillis() + ".ndjson");
+            Files.move(spillFile(), target, StandardCopyOption.ATOMIC_MOVE);
+        }
+        try (var files = pendingFiles()) {
+            files.filter(file -> file.getFileName().toString().startsWith(REPLAY_PREFIX)).sorted().forEach(claimed::add);
+        }
+        return claimed;
+    }
+
+    List<EmissionLog> read(Path file) throws IOException {
+        var logs = new ArrayList<EmissionLog>();
+        try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            for (var line : (Iterable<String>) lines::iterator) {
+                if (line.isBlank()) continue;
+                logs.add(objectMapper.readValue(line, Entry.class).restore(userRepository));
+            }
+        }
+        return logs;
+    }
+
+    private Stream<Path> pendingFiles() throws IOException {
+        if (!Files.isDirectory(dir)) return Stream.empty();
+        return Files.list(dir).filter(file -> {
+            var name = file.getFileName().toString();
+            return name.equals(SPILL_FILE) || name.startsWith(REPLAY_PREFIX);
+        });
+    }
+
+    record Entry(
+            UUID id,
+            UUID userId,
+            Instant createdAt,
+            String model,
+            String region,
+            long tokens,
+            double runtimeSeconds,
+            BigDecimal modelPowerFactor,
+            BigDecimal regionCarbonIntensity,
+            BigDecimal waterFactor,
+            BigDecimal energyKwh,
+            BigDecimal co2Grams,
+            BigDecimal waterLiters,
+            int greenScore,
+            String idempotencyKey
+    ) {
+        static Entry of(EmissionLog log) {
+            return new Entry(
+                    log.getId(), log.getUser().getId(), log.getCreatedAt(), log.getModel(), log.getRegion(),
+                    log.getTokens(), log.getRuntimeSeconds(), log.getModelPowerFactor(), log.getRegionCarbonIntensity(),
+                    log.getWaterFactor(), log.getEnergyKwh(), log.getCo2Grams(), log.getWaterLiters(),
+                    log.getGreenScore(), log.getIdempotencyKey()
+            );
+        }
+
+        // Writes only need the user's id, so a reference is enough.
+        EmissionLog restore(UserRepository users) {
+            var log = new EmissionLog(users.getReferenceById(userId), id, createdAt);
+            log.setModel(model);
+            log.setRegion(region);
+            log.setTokens(tokens);
+            log.setRuntimeSeconds(runtimeSeconds);
+            log.setModelPowerFactor(modelPowerFactor);
+            log.setRegionCarbonIntensity(regionCarbonIntensity);
+            log.setWaterFactor(waterFactor);
+            log.setEnergyKwh(energyKwh);
+            log.setCo2Grams(co2Grams);
+            log.setWaterLiters(waterLiters);
+            log.setGreenScore(greenScore);
+            log.setIdempotencyKey(idempotencyKey);
+            return log;
+        }
+    }
+}
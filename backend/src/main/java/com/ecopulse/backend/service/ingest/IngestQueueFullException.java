@@ -0,0 +1,7 @@
+package com.ecopulse.backend.service.ingest;
+
+public class IngestQueueFullException extends RuntimeException {
+    public IngestQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecopulse.backend.service.ingest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+// Two generations of BloomFilter: puts go to the current one, lookups check both, and a rotation drops the
+// older one. Rotating once per period keeps every value for between one and two periods, without ever
+// clearing a filter that is still being written to.
+final class RotatingBloomFilter {
+    private final Duration period;
+    private final Supplier<BloomFilter> newFilter;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+    private volatile Instant rotatedAt;
+
+    RotatingBloomFilter(Duration period, Supplier<BloomFilter> newFilter, Instant now) {
+        this.period = period;
+        this.newFilter = newFilter;
+        this.current = newFilter.get();
+        this.previous = newFilter.get();
+        this.rotatedAt = now;
+    }
+
+    void put(String value) {
+        current.put(value);
+    }
+
+    boolean mightContain(String value) {
+        return current.mightContain(value) || previous.mightContain(value);
+    }
+
+    // Called from a single scheduler thread; returns whether a rotation happened.
+    boolean rotateIfDue(Instant now) {
+        if (Duration.between(rotatedAt, now).compareTo(period) < 0) return false;
+        previous = current;
+        current = newFilter.get();
+        rotatedAt = now;
+        return true;
+    }
+}
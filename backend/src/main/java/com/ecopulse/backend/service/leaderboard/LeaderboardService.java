@@ -0,0 +1,178 @@
+package com.ecopulse.backend.service.leaderboard;
+
+import com.ecopulse.backend.model.User;
+import com.ecopulse.backend.repository.UserRepository;
+import com.ecopulse.backend.service.ingest.EmissionsWrittenEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Average green score per user for the current UTC day, ISO week and month, ranked in Redis sorted sets.
+// Each period bucket has its own keys (leaderboard:daily:2026-10-16, ...), so windows roll over by key name
+// and old buckets expire on their own. Per-user score sums and counts live in hashes next to the ZSET and
+// are updated in the same script, so the ranked average is always sum / count. Top-N and rank lookups are
+// O(log n) in the number of ranked users.
+@Service
+public class LeaderboardService {
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    public enum Period {
+        DAILY(Duration.ofDays(2), date -> date.toString()),
+        WEEKLY(Duration.ofDays(14), date -> date.get(IsoFields.WEEK_BASED_YEAR) + "-W"
+                + String.format("%02d", date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR))),
+        MONTHLY(Duration.ofDays(62), date -> date.format(DateTimeFormatter.ofPattern("yyyy-MM")));
+
+        // Long enough that the previous bucket is still readable just after rollover.
+        private final Duration retention;
+        private final Function<LocalDate, String> bucket;
+
+        Period(Duration retention, Function<LocalDate, String> bucket) {
+            this.retention = retention;
+            this.bucket = bucket;
+        }
+
+        String bucket(Instant at) {
+            return bucket.apply(LocalDate.ofInstant(at, ZoneOffset.UTC));
+        }
+    }
+
+    // KEYS: (zset, sums, counts) per period. ARGV: one ttl in seconds per period, then (user, sum, count) triples.
+    private static final RedisScript<Long> RECORD = RedisScript.of("""
+            local periods = #KEYS / 3
+            for p = 0, periods - 1 do
+                local zset, sums, counts = KEYS[p * 3 + 1], KEYS[p * 3 + 2], KEYS[p * 3 + 3]
+                for i = periods + 1, #ARGV, 3 do
+                    local sum = redis.call('hincrby', sums, ARGV[i], ARGV[i + 1])
+                    local count = redis.call('hincrby', counts, ARGV[i], ARGV[i + 2])
+                    redis.call('zadd', zset, sum / count, ARGV[i])
+                end
+                for _, key in ipairs({zset, sums, counts}) do
+                    redis.call('expire', key, ARGV[p + 1])
+                end
+            end
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final UserRepository userRepository;
+
+    public LeaderboardService(StringRedisTemplate redis, UserRepository userRepository) {
+        this.redis = redis;
+        this.userRepository = userRepository;
+    }
+
+    // Every write path (single, batch, queued ingest) publishes EmissionsWrittenEvent, so scores are counted
+    // once per committed log. Redis failures only cost leaderboard accuracy, never the write.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onWritten(EmissionsWrittenEvent event) {
+        // Logs of one batch normally share all three buckets; grouping keeps late or midnight batches exact.
+        var byBuckets = new HashMap<List<String>, Map<UUID, long[]>>();
+        for (var emissionLog : event.logs()) {
+            var keys = new ArrayList<String>(Period.values().length);
+            for (var period : Period.values()) keys.add(key(period, period.bucket(emissionLog.getCreatedAt())));
+            var totals = byBuckets.computeIfAbsent(keys, k -> new HashMap<>())
+                    .computeIfAbsent(emissionLog.getUser().getId(), id -> new long[2]);
+            totals[0] += emissionLog.getGreenScore();
+            totals[1]++;
+        }
+
+        try {
+            byBuckets.forEach(this::record);
+        } catch (DataAccessException e) {
+            log.warn("Leaderboard update failed for {} logs", event.logs().size(), e);
+        }
+    }
+
+    public Leaderboard leaderboard(Period period, UUID userId, int limit) {
+        var bucket = period.bucket(Instant.now());
+        var key = key(period, bucket);
+
+        var top = redis.opsForZSet().reverseRangeWithScores(key, 0, limit - 1);
+        var ranked = new ArrayList<Ranked>();
+        if (top != null && !top.isEmpty()) {
+            var ids = top.stream().map(t -> UUID.fromString(t.getValue())).toList();
+            var counts = counts(key, ids);
+            var names = userRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(User::getId, LeaderboardService::nameOf));
+            int rank = 1;
+            for (var entry : top) {
+                var id = UUID.fromString(entry.getValue());
+                ranked.add(new Ranked(rank++, id, names.get(id), entry.getScore(), counts.get(id)));
+            }
+        }
+
+        Ranked me = null;
+        var member = userId.toString();
+        var myRank = redis.opsForZSet().reverseRank(key, member);
+        if (myRank != null) {
+            var score = redis.opsForZSet().score(key, member);
+            me = new Ranked(myRank + 1, userId, null, score == null ? 0 : score, counts(key, List.of(userId)).get(userId));
+        }
+        var size = redis.opsForZSet().zCard(key);
+        return new Leaderboard(period.name().toLowerCase(Locale.ROOT), bucket, size == null ? 0 : size, ranked, me);
+    }
+
+    private void record(List<String> zsets, Map<UUID, long[]> totals) {
+        var keys = new ArrayList<String>(zsets.size() * 3);
+        var args = new ArrayList<String>(Period.values().length + totals.size() * 3);
+        for (var zset : zsets) {
+            keys.add(zset);
+            keys.add(zset + ":sum");
+            keys.add(zset + ":count");
+        }
+        for (var period : Period.values()) args.add(Long.toString(period.retention.toSeconds()));
+        totals.forEach((userId, sumAndCount) -> {
+            args.add(userId.toString());
+            args.add(Long.toString(sumAndCount[0]));
+            args.add(Long.toString(sumAndCount[1]));
+        });
+        redis.execute(RECORD, keys, args.toArray());
+    }
+
+    private Map<UUID, Long> counts(String key, List<UUID> ids) {
+        var values = redis.<String, String>opsForHash().multiGet(key + ":count", ids.stream().map(UUID::toString).toList());
+        var counts = new LinkedHashMap<UUID, Long>();
+        for (int i = 0; i < ids.size(); i++) {
+            var value = values.get(i);
+            counts.put(ids.get(i), value == null ? 0L : Long.parseLong(value));
+        }
+        return counts;
+    }
+
+    // Full names are personal data; other users see first name and last initial.
+    private static String nameOf(User user) {
+        var fullName = user.getFullName();
+        if (fullName == null || fullName.isBlank()) return null;
+        var parts = fullName.trim().split("\\s+");
+        return parts.length == 1 ? parts[0] : parts[0] + " " + parts[parts.length - 1].charAt(0) + ".";
+    }
+
+    private static String key(Period period, String bucket) {
+        return "leaderboard:" + period.name().toLowerCase(Locale.ROOT) + ":" + bucket;
+    }
+
+    public record Ranked(long rank, UUID userId, String name, double averageScore, long entries) {}
+
+    public record Leaderboard(String period, String bucket, long participants, List<Ranked> top, Ranked me) {}
+}
@@ -0,0 +1,293 @@
+package com.ecopulse.backend.service.partition;
+
+import com.ecopulse.backend.config.BackendProperties;
+import com.ecopulse.backend.config.EmissionIndexInitializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+// Monthly range partitioning of emission_logs by created_at (UTC months, partitions named
+// emission_logs_pYYYY_MM). Once the table is partitioned this keeps premakeMonths of future partitions in
+// place and detaches (optionally drops) partitions older than retentionMonths, so retention never runs a
+// DELETE. Every emission query filters on created_at, so the planner prunes to the partitions in range.
+// With defaultPartition a row outside every monthly range (clock skew, a replayed backlog) lands in
+// emission_logs_default instead of failing the insert; maintenance warns while it holds rows, since a
+// monthly partition cannot be created over rows already sitting in the default.
+//
+// migrate() converts an existing plain table online: it copies rows into a partitioned shadow table in
+// keyset batches while ingest continues, catches up once, then swaps the tables in one short transaction.
+// Emission logs are insert-only, so copying by (created_at, id) never misses updates.
+@Service
+public class EmissionPartitionManager {
+    private static final Logger log = LoggerFactory.getLogger(EmissionPartitionManager.class);
+
+    private static final String TABLE = "emission_logs";
+    private static final String SHADOW = "emission_logs_part";
+    private static final String DEFAULT_PARTITION = "emission_logs_default";
+    private static final Pattern PARTITION_NAME = Pattern.compile("emission_logs_p(\\d{4})_(\\d{2})");
+    // Bound on how late a row may be inserted relative to its created_at (write-behind queue, retries).
+    private static final Duration CATCH_UP_MARGIN = Duration.ofHours(1);
+    // How long DDL may wait for (and make others queue behind) a conflicting lock before giving up.
+    private static final String LOCK_TIMEOUT = "5s";
+    private static final int SWAP_ATTEMPTS = 5;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final BackendProperties.PartitionProperties properties;
+    private final AtomicReference<String> migrationStatus = new AtomicReference<>("idle");
+
+    public EmissionPartitionManager(JdbcTemplate jdbc, TransactionTemplate transactions, BackendProperties properties) {
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+        this.properties = properties.partitioning();
+    }
+
+    public boolean isPartitioned() {
+        var kind = jdbc.queryForList("select relkind::text from pg_class where relname = ? and relkind in ('r', 'p')", String.class, TABLE);
+        return kind.contains("p");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 2 * * *", zone = "UTC")
+    public void maintain() {
+        if (!properties.enabled() || !isPartitioned()) return;
+        ensurePartitions(TABLE, YearMonth.now(ZoneOffset.UTC));
+        applyRetention();
+        if (properties.defaultPartition() && hasPartition(DEFAULT_PARTITION)
+                && Boolean.TRUE.equals(jdbc.queryForObject("select exists (select 1 from " + DEFAULT_PARTITION + ")", Boolean.class))) {
+            log.warn("{} holds rows outside every monthly partition; move them before that month's partition is created", DEFAULT_PARTITION);
+        }
+    }
+
+    public String migrationStatus() {
+        return migrationStatus.get();
+    }
+
+    // Starts the online migration on a background thread; returns false if it is already running or done.
+    public boolean startMigration() {
+        if (!properties.enabled()) throw new IllegalArgumentException("Partitioning is disabled (ecopulse.partitioning.enabled)");
+        if (isPartitioned()) return false;
+        var status = migrationStatus.get();
+        if (!(status.equals("idle") || status.startsWith("failed")) || !migrationStatus.compareAndSet(status, "starting")) {
+            return false;
+        }
+
+        Thread.ofPlatform().name("emission-partition-migration").daemon().start(() -> {
+            try {
+                migrate();
+            } catch (RuntimeException e) {
+                log.error("Emission log partition migration failed", e);
+                migrationStatus.set("failed: " + e.getMessage());
+            }
+        });
+        return true;
+    }
+
+    void migrate() {
+        var startedAt = Instant.now();
+        jdbc.execute("create index concurrently if not exists idx_emission_logs_migration on " + TABLE + " (created_at, id)");
+        jdbc.execute("create table if not exists " + SHADOW + " (like " + TABLE + " including defaults including constraints) partition by range (created_at)");
+        if (jdbc.queryForObject("select count(*) from pg_constraint where conname = ?", Long.class, SHADOW + "_pkey") == 0) {
+            jdbc.execute("alter table " + SHADOW + " add constraint " + SHADOW + "_pkey primary key (id, created_at)");
+        }
+
+        var oldest = jdbc.queryForObject("select min(created_at) from " + TABLE, OffsetDateTime.class);
+        var first = oldest == null ? YearMonth.now(ZoneOffset.UTC) : YearMonth.from(oldest.withOffsetSameInstant(ZoneOffset.UTC));
+        for (var month = first; month.isBefore(YearMonth.now(ZoneOffset.UTC)); month = month.plusMonths(1)) {
+            createPartition(SHADOW, month);
+        }
+        ensurePartitions(SHADOW, YearMonth.now(ZoneOffset.UTC));
+
+        long copied = copyInBatches();
+
+        // Rows committed during the batch copy with a created_at behind the cursor.
+        var catchUpFrom = Instant.now();
+        copied += copySince(startedAt.minus(CATCH_UP_MARGIN));
+
+        migrationStatus.set("indexing (" + copied + " rows copied)");
+        jdbc.execute("create index if not exists idx_emission_logs_part_history on " + SHADOW + " " + EmissionIndexInitializer.HISTORY_INDEX_COLUMNS);
+        var foreignKeys = jdbc.queryForList(
+                "select conname, pg_get_constraintdef(oid) from pg_constraint where conrelid = ?::regclass and contype = 'f'",
+                TABLE
+        );
+        for (var fk : foreignKeys) {
+            jdbc.execute("alter table " + SHADOW + " add constraint " + fk.get("conname") + " " + fk.get("pg_get_constraintdef"));
+        }
+
+        migrationStatus.set("swapping");
+        for (int attempt = 1; ; attempt++) {
+            try {
+                swap(catchUpFrom);
+                break;
+            } catch (CannotAcquireLockException e) {
+                if (attempt == SWAP_ATTEMPTS) throw e;
+                log.warn("Partition swap timed out waiting for a lock (attempt {}/{}); retrying", attempt, SWAP_ATTEMPTS);
+                migrationStatus.set("swapping (lock timeout, attempt " + (attempt + 1) + ")");
+            }
+        }
+
+        migrationStatus.set("done (" + copied + " rows copied; emission_logs_legacy can be dropped after verification)");
+        log.info("Migrated emission_logs to monthly partitions: {} rows", copied);
+    }
+
+    private void swap(Instant catchUpFrom) {
+        transactions.executeWithoutResult(tx -> {
+            // The share row exclusive lock blocks writers while the last rows are copied, but the renames take
+            // ACCESS EXCLUSIVE and block readers too until commit. lock_timeout bounds the wait behind open
+            // transactions (and so how long new queries queue behind this one); a timeout rolls back and retries.
+            jdbc.execute("set local lock_timeout = '" + LOCK_TIMEOUT + "'");
+            jdbc.execute("lock table " + TABLE + " in share row exclusive mode");
+            copySince(catchUpFrom.minus(CATCH_UP_MARGIN));
+            jdbc.execute("alter table " + TABLE + " rename to emission_logs_legacy");
+            jdbc.execute("alter index " + TABLE + "_pkey rename to emission_logs_legacy_pkey");
+            jdbc.execute("alter index if exists idx_emission_logs_history rename to idx_emission_logs_legacy_history");
+            jdbc.execute("alter table " + SHADOW + " rename to " + TABLE);
+            jdbc.execute("alter index " + SHADOW + "_pkey rename to " + TABLE + "_pkey");
+            jdbc.execute("alter index idx_emission_logs_part_history rename to idx_emission_logs_history");
+            jdbc.execute("alter table if exists " + SHADOW + "_default rename to " + DEFAULT_PARTITION);
+        });
+    }
+
+    private long copyInBatches() {
+        var lastCreatedAt = OffsetDateTime.ofInstant(Instant.EPOCH, ZoneOffset.UTC);
+        var lastId = new UUID(0, 0);
+        long copied = 0;
+
+        while (true) {
+            var batch = jdbc.query("""
+                    with batch as (
+                        select * from emission_logs where (created_at, id) > (?, ?) order by created_at, id limit ?
+                    ), copied as (
+                        insert into emission_logs_part select * from batch on conflict do nothing
+                    )
+                    select created_at, id, (select count(*) from batch) as batch_size
+                    from batch order by created_at desc, id desc limit 1
+                    """,
+                    (rs, i) -> new CopyCursor(rs.getObject("created_at", OffsetDateTime.class), rs.getObject("id", UUID.class), rs.getLong("batch_size")),
+                    lastCreatedAt, lastId, properties.migrationBatchSize()
+            );
+            if (batch.isEmpty()) return copied;
+
+            var cursor = batch.get(0);
+            lastCreatedAt = cursor.createdAt();
+            lastId = cursor.id();
+            copied += cursor.rows();
+            migrationStatus.set("copying (" + copied + " rows, at " + lastCreatedAt + ")");
+        }
+    }
+
+    private int copySince(Instant since) {
+        return jdbc.update(
+                "insert into " + SHADOW + " select * from " + TABLE + " where created_at >= ? on conflict do nothing",
+                OffsetDateTime.ofInstant(since, ZoneOffset.UTC)
+        );
+    }
+
+    private void ensurePartitions(String table, YearMonth current) {
+        for (int i = 0; i <= properties.premakeMonths(); i++) {
+            createPartition(table, current.plusMonths(i));
+        }
+        if (properties.defaultPartition()) {
+            var name = table.equals(TABLE) ? DEFAULT_PARTITION : table + "_default";
+            jdbc.execute("create table if not exists " + name + " partition of " + table + " default");
+        }
+    }
+
+    private void createPartition(String table, YearMonth month) {
+        var from = month.atDay(1);
+        var to = month.plusMonths(1).atDay(1);
+        jdbc.execute("create table if not exists " + partitionName(month) + " partition of " + table
+                + " for values from ('" + utc(from) + "') to ('" + utc(to) + "')");
+    }
+
+    private void applyRetention() {
+        if (properties.retentionMonths() <= 0) return;
+        var oldestKept = YearMonth.now(ZoneOffset.UTC).minusMonths(properties.retentionMonths());
+        // DETACH ... CONCURRENTLY only takes SHARE UPDATE EXCLUSIVE on the parent, so queries keep running, but
+        // Postgres refuses it while a default partition exists; then the plain detach runs under lock_timeout.
+        var concurrently = !hasPartition(DEFAULT_PARTITION);
+
+        for (var partition : detachPending()) {
+            jdbc.execute("alter table " + TABLE + " detach partition " + partition + " finalize");
+        }
+        for (var partition : partitions()) {
+            var matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) continue;
+            var month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(oldestKept)) continue;
+
+            // Detaching is a catalog change, independent of how many rows the partition holds. The concurrent form
+            // cannot run inside a transaction block; JdbcTemplate runs each statement in autocommit here.
+            if (concurrently) {
+                jdbc.execute("alter table " + TABLE + " detach partition " + partition + " concurrently");
+            } else {
+                detachWithLockTimeout(partition);
+            }
+            if (properties.dropExpired()) {
+                jdbc.execute("drop table " + partition);
+                log.info("Dropped expired emission log partition {}", partition);
+            } else {
+                log.info("Detached expired emission log partition {}", partition);
+            }
+        }
+    }
+
+    private void detachWithLockTimeout(String partition) {
+        transactions.executeWithoutResult(tx -> {
+            jdbc.execute("set local lock_timeout = '" + LOCK_TIMEOUT + "'");
+            jdbc.execute("alter table " + TABLE + " detach partition " + partition);
+        });
+    }
+
+    private boolean hasPartition(String partition) {
+        return partitions().contains(partition);
+    }
+
+    // A concurrent detach interrupted between its two transactions leaves the partition pending until finalized.
+    private List<String> detachPending() {
+        return jdbc.queryForList("""
+                select c.relname from pg_inherits i
+                join pg_class c on c.oid = i.inhrelid
+                join pg_class p on p.oid = i.inhparent
+                where p.relname = ? and i.inhdetachpending
+                """, String.class, TABLE);
+    }
+
+    private List<String> partitions() {
+        return new ArrayList<>(jdbc.queryForList("""
+                select c.relname from pg_inherits i
+                join pg_class c on c.oid = i.inhrelid
+                join pg_class p on p.oid = i.inhparent
+                where p.relname = ?
+                order by c.relname
+                """, String.class, TABLE));
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "emission_logs_p%04d_%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+
+    private static String utc(LocalDate date) {
+        return date + " 00:00:00+00";
+    }
+
+    private record CopyCursor(OffsetDateTime createdAt, UUID id, long rows) {}
+}
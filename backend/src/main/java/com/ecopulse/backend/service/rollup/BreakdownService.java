@@ -0,0 +1,173 @@
+package com.ecopulse.backend.service.rollup;
+
+import com.ecopulse.backend.model.EmissionRollup.Granularity;
+import com.ecopulse.backend.repository.EmissionRepository;
+import com.ecopulse.backend.repository.EmissionRollupRepository;
+import com.ecopulse.backend.service.rollup.EmissionRollupService.Totals;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Emission totals grouped by model, region or UTC day/hour. With rollups enabled the range is split by
+// RollupPlan, so the cost depends on the number of buckets and groups rather than on the number of logs;
+// otherwise one GROUP BY over the covering index. Time series are emitted bucket by bucket in order.
+@Service
+public class BreakdownService {
+    public static final String OTHER = "other";
+
+    public enum GroupBy { MODEL, REGION, DAY, HOUR }
+
+    private final EmissionRepository emissionRepository;
+    private final EmissionRollupRepository rollupRepository;
+    private final EmissionRollupService rollupService;
+
+    public BreakdownService(
+            EmissionRepository emissionRepository,
+            EmissionRollupRepository rollupRepository,
+            EmissionRollupService rollupService
+    ) {
+        this.emissionRepository = emissionRepository;
+        this.rollupRepository = rollupRepository;
+        this.rollupService = rollupService;
+    }
+
+    // Inclusive [from, to]; null ends are open. top keeps the N largest groups by CO2 and folds the rest into
+    // "other"; it only applies to model and region grouping.
+    @Transactional(readOnly = true)
+    public void breakdown(UUID userId, GroupBy groupBy, Instant from, Instant to, Integer top, Consumer<Row> sink) {
+        var start = from == null ? EmissionRepository.RANGE_START : from;
+        var end = to == null ? EmissionRepository.RANGE_END : to;
+        switch (groupBy) {
+            case MODEL, REGION -> groups(userId, groupBy, start, end, top, sink);
+            case DAY -> timeSeries(userId, ChronoUnit.DAYS, start, end, sink);
+            case HOUR -> timeSeries(userId, ChronoUnit.HOURS, start, end, sink);
+        }
+    }
+
+    private void groups(UUID userId, GroupBy groupBy, Instant start, Instant end, Integer top, Consumer<Row> sink) {
+        var byModel = groupBy == GroupBy.MODEL;
+        var merged = new HashMap<String, Totals>();
+        var plan = RollupPlan.of(start, end);
+
+        if (rollupService.readEnabled() && plan.covered()) {
+            if (plan.hasRawHead()) {
+                mergeGroups(merged, rawGroups(userId, byModel, start, beforeCovered(plan)));
+            }
+            for (var segment : plan.segments()) {
+                mergeGroups(merged, byModel
+                        ? rollupRepository.totalsByModel(userId, segment.granularity(), segment.from(), segment.until())
+                        : rollupRepository.totalsByRegion(userId, segment.granularity(), segment.from(), segment.until()));
+            }
+            mergeGroups(merged, rawGroups(userId, byModel, plan.coveredUntil(), end));
+        } else {
+            mergeGroups(merged, rawGroups(userId, byModel, start, end));
+        }
+
+        var sorted = new ArrayList<>(merged.entrySet());
+        sorted.sort(Comparator.comparing((Map.Entry<String, Totals> e) -> e.getValue().co2Grams()).reversed()
+                .thenComparing(Map.Entry::getKey));
+
+        var limit = top == null ? sorted.size() : Math.min(top, sorted.size());
+        for (int i = 0; i < limit; i++) {
+            sink.accept(Row.of(sorted.get(i).getKey(), sorted.get(i).getValue()));
+        }
+        if (limit < sorted.size()) {
+            var other = Totals.ZERO;
+            for (int i = limit; i < sorted.size(); i++) other = other.plus(sorted.get(i).getValue());
+            sink.accept(Row.of(OTHER, other));
+        }
+    }
+
+    private void timeSeries(UUID userId, ChronoUnit unit, Instant start, Instant end, Consumer<Row> sink) {
+        var plan = RollupPlan.of(start, end);
+        if (!rollupService.readEnabled() || !plan.covered()) {
+            var dateTruncUnit = unit == ChronoUnit.DAYS ? "day" : "hour";
+            for (var bucket : emissionRepository.totalsByTimeBucket(userId, dateTruncUnit, start, end)) {
+                sink.accept(Row.of(Instant.ofEpochSecond(bucket.getBucketEpoch()).toString(), Totals.of(bucket)));
+            }
+            return;
+        }
+
+        // Sources arrive in chronological order, so buckets that span two sources (e.g. a day made of raw head,
+        // hour and day rollups) are adjacent and can be merged without buffering the series.
+        var series = new SeriesWriter(unit, sink);
+        if (plan.hasRawHead()) {
+            series.add(start, Totals.of(emissionRepository.totalsBetween(userId, start, beforeCovered(plan))));
+        }
+        // Day rollups cannot be split into hours, so an hourly series reads hour rollups across the whole span.
+        var segments = unit == ChronoUnit.HOURS
+                ? List.of(new RollupPlan.Segment(Granularity.HOUR, plan.coveredFrom(), plan.coveredUntil()))
+                : plan.segments();
+        for (var segment : segments) {
+            for (var bucket : rollupRepository.totalsByBucket(userId, segment.granularity(), segment.from(), segment.until())) {
+                series.add(bucket.getBucket(), Totals.of(bucket));
+            }
+        }
+        series.add(plan.coveredUntil(), Totals.of(emissionRepository.totalsBetween(userId, plan.coveredUntil(), end)));
+        series.flush();
+    }
+
+    private List<EmissionRepository.GroupTotals> rawGroups(UUID userId, boolean byModel, Instant from, Instant to) {
+        return byModel
+                ? emissionRepository.totalsByModel(userId, from, to)
+                : emissionRepository.totalsByRegion(userId, from, to);
+    }
+
+    private static void mergeGroups(Map<String, Totals> merged, List<EmissionRepository.GroupTotals> rows) {
+        for (var row : rows) {
+            merged.merge(row.getGroupKey(), Totals.of(row), Totals::plus);
+        }
+    }
+
+    // Raw head is [from, coveredFrom); stored timestamps have microsecond precision, so the inclusive bound
+    // one microsecond earlier selects the same rows.
+    private static Instant beforeCovered(RollupPlan plan) {
+        return plan.coveredFrom().minus(1, ChronoUnit.MICROS);
+    }
+
+    private static final class SeriesWriter {
+        private final ChronoUnit unit;
+        private final Consumer<Row> sink;
+        private Instant bucket;
+        private Totals totals;
+
+        SeriesWriter(ChronoUnit unit, Consumer<Row> sink) {
+            this.unit = unit;
+            this.sink = sink;
+        }
+
+        void add(Instant at, Totals value) {
+            if (value.entries() == 0) return;
+            var key = at.truncatedTo(unit);
+            if (key.equals(bucket)) {
+                totals = totals.plus(value);
+                return;
+            }
+            flush();
+            bucket = key;
+            totals = value;
+        }
+
+        void flush() {
+            if (bucket != null) sink.accept(Row.of(bucket.toString(), totals));
+            bucket = null;
+            totals = null;
+        }
+    }
+
+    public record Row(String key, long entries, long tokens, BigDecimal energyKwh, BigDecimal co2Grams, BigDecimal waterLiters) {
+        static Row of(String key, Totals totals) {
+            return new Row(key, totals.entries(), totals.tokens(), totals.energyKwh(), totals.co2Grams(), totals.waterLiters());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ecopulse.backend.service.rollup;
+
+import com.ecopulse.backend.model.EmissionRollup.Granularity;
+import com.ecopulse.backend.repository.EmissionRollupRepository;
+import com.ecopulse.backend.service.sketch.EmissionSketchService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+// Separate bean so each day of a rebuild runs in its own transaction.
+@Component
+class EmissionRollupRebuilder {
+    private final EmissionRollupRepository rollupRepository;
+    private final EmissionSketchService sketchService;
+    private final RollupDayLock dayLock;
+
+    EmissionRollupRebuilder(EmissionRollupRepository rollupRepository, EmissionSketchService sketchService, RollupDayLock dayLock) {
+        this.rollupRepository = rollupRepository;
+        this.sketchService = sketchService;
+        this.dayLock = dayLock;
+    }
+
+    // An increment that creates a bucket row between the delete and the recompute would make the plain insert
+    // fail on the unique key; an upserting insert would instead count that log twice once it commits. The
+    // exclusive day lock waits for ingest transactions already writing to the day and holds back new ones until
+    // this commits, so rebuilding the current day under live traffic briefly stalls its writes instead.
+    @Transactional
+    public int rebuildDay(Instant day) {
+        var until = day.plus(1, ChronoUnit.DAYS);
+        dayLock.exclusive(day);
+        rollupRepository.deleteBuckets(day, until);
+        return rollupRepository.rebuildBuckets(Granularity.HOUR.name(), "hour", day, until)
+                + rollupRepository.rebuildBuckets(Granularity.DAY.name(), "day", day, until)
+                + sketchService.rebuildDay(day);
+    }
+}
@@ -0,0 +1,231 @@
+package com.ecopulse.backend.service.rollup;
+
+import com.ecopulse.backend.config.BackendProperties;
+import com.ecopulse.backend.model.EmissionLog;
+import com.ecopulse.backend.model.EmissionRollup.Granularity;
+import com.ecopulse.backend.model.id.TimeOrderedUuid;
+import com.ecopulse.backend.repository.EmissionRepository;
+import com.ecopulse.backend.repository.EmissionRollupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+@Service
+public class EmissionRollupService {
+    private static final Logger log = LoggerFactory.getLogger(EmissionRollupService.class);
+
+    // Upserts run in a fixed key order so concurrent writers lock shared rollup rows in the same order.
+    private static final Comparator<BucketKey> KEY_ORDER = Comparator
+            .comparing(BucketKey::userId)
+            .thenComparing(BucketKey::granularity)
+            .thenComparing(BucketKey::bucketStart)
+            .thenComparing(BucketKey::model)
+            .thenComparing(BucketKey::region);
+
+    private final EmissionRepository emissionRepository;
+    private final EmissionRollupRepository rollupRepository;
+    private final EmissionRollupRebuilder rebuilder;
+    private final RollupDayLock dayLock;
+    private final boolean readEnabled;
+    private final Counter mismatches;
+
+    public EmissionRollupService(
+            EmissionRepository emissionRepository,
+            EmissionRollupRepository rollupRepository,
+            EmissionRollupRebuilder rebuilder,
+            RollupDayLock dayLock,
+            BackendProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.emissionRepository = emissionRepository;
+        this.rollupRepository = rollupRepository;
+        this.rebuilder = rebuilder;
+        this.dayLock = dayLock;
+        this.readEnabled = properties.rollups().readEnabled();
+        this.mismatches = Counter.builder("ecopulse.rollups.mismatches")
+                .description("User-days whose rollups disagree with raw emission logs")
+                .register(meterRegistry);
+    }
+
+    // Called by EmissionWriter inside the ingest transaction, so rollups commit or roll back with the logs. The
+    // shared day locks are held until that commit, which also covers the sketches written after this.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<EmissionLog> logs) {
+        var deltas = new TreeMap<BucketKey, Totals>(KEY_ORDER);
+        var days = new TreeSet<Instant>();
+        for (var emissionLog : logs) {
+            var userId = emissionLog.getUser().getId();
+            var createdAt = emissionLog.getCreatedAt();
+            days.add(bucketStart(createdAt, Granularity.DAY));
+            for (var granularity : Granularity.values()) {
+                var key = new BucketKey(userId, granularity, bucketStart(createdAt, granularity), emissionLog.getModel(), emissionLog.getRegion());
+                deltas.merge(key, Totals.of(emissionLog), Totals::plus);
+            }
+        }
+
+        dayLock.shared(days);
+        for (var delta : deltas.entrySet()) {
+            var key = delta.getKey();
+            var totals = delta.getValue();
+            rollupRepository.increment(
+                    TimeOrderedUuid.next(),
+                    key.userId(),
+                    key.granularity().name(),
+                    key.bucketStart(),
+                    key.model(),
+                    key.region(),
+                    totals.entries(),
+                    totals.tokens(),
+                    totals.energyKwh(),
+                    totals.co2Grams(),
+                    totals.waterLiters(),
+                    totals.greenScoreSum()
+            );
+        }
+    }
+
+    public boolean readEnabled() {
+        return readEnabled;
+    }
+
+    // Inclusive [from, to]; null ends are open. Falls back to a single raw scan until rollups are backfilled
+    // and ecopulse.rollups.readEnabled is switched on.
+    @Transactional(readOnly = true)
+    public Totals totals(UUID userId, Instant from, Instant to) {
+        var start = from == null ? EmissionRepository.RANGE_START : from;
+        var end = to == null ? EmissionRepository.RANGE_END : to;
+        var plan = RollupPlan.of(start, end);
+        if (!readEnabled || !plan.covered()) {
+            return Totals.of(emissionRepository.totalsBetween(userId, start, end));
+        }
+
+        var totals = Totals.ZERO;
+        if (plan.hasRawHead()) {
+            totals = totals.plus(Totals.of(emissionRepository.totalsFromUntil(userId, start, plan.coveredFrom())));
+        }
+        for (var segment : plan.segments()) {
+            totals = totals.plus(Totals.of(rollupRepository.totals(userId, segment.granularity(), segment.from(), segment.until())));
+        }
+        return totals.plus(Totals.of(emissionRepository.totalsBetween(userId, plan.coveredUntil(), end)));
+    }
+
+    // Recomputes all buckets in [from, to) widened to whole UTC days, one day per transaction.
+    public int rebuild(Instant from, Instant to) {
+        var day = from.truncatedTo(ChronoUnit.DAYS);
+        int rows = 0;
+        while (day.isBefore(to)) {
+            rows += rebuilder.rebuildDay(day);
+            day = day.plus(1, ChronoUnit.DAYS);
+        }
+        log.info("Rebuilt emission rollups for [{}, {}): {} rows", from, to, rows);
+        return rows;
+    }
+
+    // Compares per-user raw totals with both rollup granularities for each UTC day in [from, to).
+    @Transactional(readOnly = true)
+    public List<Mismatch> check(Instant from, Instant to) {
+        var found = new ArrayList<Mismatch>();
+        for (var day = from.truncatedTo(ChronoUnit.DAYS); day.isBefore(to); day = day.plus(1, ChronoUnit.DAYS)) {
+            var until = day.plus(1, ChronoUnit.DAYS);
+            var raw = byUser(rollupRepository.rawTotalsByUser(day, until));
+            var daily = byUser(rollupRepository.rollupTotalsByUser(Granularity.DAY.name(), day, until));
+            var hourly = byUser(rollupRepository.rollupTotalsByUser(Granularity.HOUR.name(), day, until));
+
+            var users = new HashSet<UUID>(raw.keySet());
+            users.addAll(daily.keySet());
+            users.addAll(hourly.keySet());
+            for (var userId : users) {
+                var expected = raw.getOrDefault(userId, Sample.ZERO);
+                var dayRollup = daily.getOrDefault(userId, Sample.ZERO);
+                var hourRollup = hourly.getOrDefault(userId, Sample.ZERO);
+                if (!expected.equals(dayRollup) || !expected.equals(hourRollup)) {
+                    found.add(new Mismatch(userId, day, expected, dayRollup, hourRollup));
+                }
+            }
+        }
+        mismatches.increment(found.size());
+        return found;
+    }
+
+    @Scheduled(cron = "${ecopulse.rollups.checkCron}", zone = "UTC")
+    public void checkYesterday() {
+        var today = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        var found = check(today.minus(1, ChronoUnit.DAYS), today);
+        for (var mismatch : found) {
+            log.warn("Emission rollup mismatch: {}", mismatch);
+        }
+    }
+
+    static Instant bucketStart(Instant createdAt, Granularity granularity) {
+        return createdAt.truncatedTo(granularity == Granularity.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+    }
+
+    private static Map<UUID, Sample> byUser(List<EmissionRollupRepository.UserTotals> rows) {
+        var byUser = new HashMap<UUID, Sample>();
+        for (var row : rows) {
+            byUser.put(row.getUserId(), new Sample(row.getEntries(), row.getTokens(), row.getCo2Grams().stripTrailingZeros()));
+        }
+        return byUser;
+    }
+
+    private record BucketKey(UUID userId, Granularity granularity, Instant bucketStart, String model, String region) {}
+
+    public record Sample(long entries, long tokens, BigDecimal co2Grams) {
+        static final Sample ZERO = new Sample(0, 0, BigDecimal.ZERO);
+    }
+
+    public record Mismatch(UUID userId, Instant day, Sample raw, Sample dayRollup, Sample hourRollup) {}
+
+    public record Totals(long entries, long tokens, BigDecimal energyKwh, BigDecimal co2Grams, BigDecimal waterLiters, long greenScoreSum) {
+        public static final Totals ZERO = new Totals(0, 0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0);
+
+        static Totals of(EmissionLog log) {
+            return new Totals(1, log.getTokens(), log.getEnergyKwh(), log.getCo2Grams(), log.getWaterLiters(), log.getGreenScore());
+        }
+
+        // Sums are null when no row matched.
+        public static Totals of(EmissionRepository.Totals totals) {
+            return new Totals(
+                    totals.getEntries(),
+                    totals.getTokens() == null ? 0 : totals.getTokens(),
+                    orZero(totals.getEnergyKwh()),
+                    orZero(totals.getCo2Grams()),
+                    orZero(totals.getWaterLiters()),
+                    0
+            );
+        }
+
+        public Totals plus(Totals other) {
+            return new Totals(
+                    entries + other.entries,
+                    tokens + other.tokens,
+                    energyKwh.add(other.energyKwh),
+                    co2Grams.add(other.co2Grams),
+                    waterLiters.add(other.waterLiters),
+                    greenScoreSum + other.greenScoreSum
+            );
+        }
+
+        private static BigDecimal orZero(BigDecimal value) {
+            return value == null ? BigDecimal.ZERO : value;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ecopulse.backend.service.rollup;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.SortedSet;
+
+// Transaction-scoped advisory locks on UTC days, keyed (LOCK_SPACE, epoch day). Ingest holds a shared lock on
+// every day it writes to and a rebuild holds its day exclusively, so the rebuild's delete and recompute never
+// interleave with an increment to the same day. Both are released at commit.
+@Component
+class RollupDayLock {
+    private static final int LOCK_SPACE = 0x726f6c6c;
+
+    private final JdbcTemplate jdbc;
+
+    RollupDayLock(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    // Taken in day order, so writers spanning several days cannot deadlock with each other.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void shared(SortedSet<Instant> days) {
+        for (var day : days) {
+            jdbc.queryForList("select pg_advisory_xact_lock_shared(?, ?)", LOCK_SPACE, epochDay(day));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void exclusive(Instant day) {
+        jdbc.queryForList("select pg_advisory_xact_lock(?, ?)", LOCK_SPACE, epochDay(day));
+    }
+
+    private static int epochDay(Instant day) {
+        return Math.toIntExact(Math.floorDiv(day.getEpochSecond(), 86_400L));
+    }
+}
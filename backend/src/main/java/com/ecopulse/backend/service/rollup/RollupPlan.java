@@ -0,0 +1,47 @@
+package com.ecopulse.backend.service.rollup;
+
+import com.ecopulse.backend.model.EmissionRollup.Granularity;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+// Splits an inclusive [from, to] range into whole rollup buckets plus raw edges: raw [from, coveredFrom),
+// hour buckets up to the first day boundary, whole days, hour buckets after the last day boundary, and raw
+// [coveredUntil, to]. A 365-day window therefore reads at most ~46 hour rows and 365 day rows per
+// (model, region) plus two short raw scans, however many logs it spans.
+public record RollupPlan(Instant from, Instant to, Instant coveredFrom, Instant coveredUntil, List<Segment> segments) {
+    public record Segment(Granularity granularity, Instant from, Instant until) {}
+
+    public static RollupPlan of(Instant from, Instant to) {
+        var hourStart = ceil(from, ChronoUnit.HOURS);
+        var hourEnd = to.truncatedTo(ChronoUnit.HOURS);
+        if (!hourStart.isBefore(hourEnd)) return new RollupPlan(from, to, to, to, List.of());
+
+        var segments = new ArrayList<Segment>(3);
+        var dayStart = ceil(hourStart, ChronoUnit.DAYS);
+        var dayEnd = hourEnd.truncatedTo(ChronoUnit.DAYS);
+        if (dayStart.isBefore(dayEnd)) {
+            if (hourStart.isBefore(dayStart)) segments.add(new Segment(Granularity.HOUR, hourStart, dayStart));
+            segments.add(new Segment(Granularity.DAY, dayStart, dayEnd));
+            if (dayEnd.isBefore(hourEnd)) segments.add(new Segment(Granularity.HOUR, dayEnd, hourEnd));
+        } else {
+            segments.add(new Segment(Granularity.HOUR, hourStart, hourEnd));
+        }
+        return new RollupPlan(from, to, hourStart, hourEnd, List.copyOf(segments));
+    }
+
+    public boolean covered() {
+        return !segments.isEmpty();
+    }
+
+    public boolean hasRawHead() {
+        return covered() && from.isBefore(coveredFrom);
+    }
+
+    private static Instant ceil(Instant instant, ChronoUnit unit) {
+        var floor = instant.truncatedTo(unit);
+        return floor.equals(instant) ? floor : floor.plus(1, unit);
+    }
+}
@@ -0,0 +1,145 @@
+package com.ecopulse.backend.service.sketch;
+
+import com.ecopulse.backend.model.EmissionLog;
+import com.ecopulse.backend.model.id.TimeOrderedUuid;
+import com.ecopulse.backend.repository.EmissionRepository;
+import com.ecopulse.backend.repository.EmissionSketchRepository;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Distribution of grams CO2 per 1k tokens, kept as one LogHistogram per (user, model, region, UTC day).
+// Percentile queries merge the day sketches in range, so memory is bounded by the number of groups and
+// no emission_logs rows are read.
+@Service
+public class EmissionSketchService {
+    public enum GroupBy { MODEL, REGION, MODEL_REGION, ALL }
+
+    private static final byte[] EMPTY = new LogHistogram().toBytes();
+    // Same fixed lock order as rollup upserts, so concurrent batches cannot deadlock on sketch rows.
+    private static final Comparator<DayKey> KEY_ORDER = Comparator
+            .comparing(DayKey::userId)
+            .thenComparing(DayKey::dayStart)
+            .thenComparing(DayKey::model)
+            .thenComparing(DayKey::region);
+
+    private final EmissionSketchRepository sketchRepository;
+
+    public EmissionSketchService(EmissionSketchRepository sketchRepository) {
+        this.sketchRepository = sketchRepository;
+    }
+
+    // Called by EmissionWriter inside the ingest transaction. Sketches are not additive in SQL, so each row is
+    // read under FOR UPDATE, merged with this batch's values and written back.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<EmissionLog> logs) {
+        var deltas = new TreeMap<DayKey, LogHistogram>(KEY_ORDER);
+        for (var emissionLog : logs) {
+            if (emissionLog.getTokens() <= 0) continue;
+            var key = new DayKey(
+                    emissionLog.getUser().getId(),
+                    emissionLog.getCreatedAt().truncatedTo(ChronoUnit.DAYS),
+                    emissionLog.getModel(),
+                    emissionLog.getRegion()
+            );
+            deltas.computeIfAbsent(key, k -> new LogHistogram())
+                    .add(perThousandTokens(emissionLog.getCo2Grams(), emissionLog.getTokens()));
+        }
+        for (var delta : deltas.entrySet()) {
+            merge(delta.getKey(), delta.getValue());
+        }
+    }
+
+    // Replaces the sketches of one UTC day from raw logs. Runs inside EmissionRollupRebuilder's per-day transaction.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int rebuildDay(Instant day) {
+        var until = day.plus(1, ChronoUnit.DAYS);
+        sketchRepository.deleteDays(day, until);
+        var sketches = new TreeMap<DayKey, LogHistogram>(KEY_ORDER);
+        try (var samples = sketchRepository.streamSamples(day, until)) {
+            samples.forEach(sample -> sketches
+                    .computeIfAbsent(new DayKey(sample.getUserId(), day, sample.getModel(), sample.getRegion()), k -> new LogHistogram())
+                    .add(perThousandTokens(sample.getCo2Grams(), sample.getTokens())));
+        }
+        for (var sketch : sketches.entrySet()) {
+            merge(sketch.getKey(), sketch.getValue());
+        }
+        return sketches.size();
+    }
+
+    // Inclusive [from, to]; null ends are open. Sketches are daily, so the range is widened to whole UTC days.
+    @Transactional(readOnly = true)
+    public List<Distribution> distributions(UUID userId, GroupBy groupBy, Instant from, Instant to, boolean withBuckets) {
+        var start = (from == null ? EmissionRepository.RANGE_START : from).truncatedTo(ChronoUnit.DAYS);
+        var until = (to == null ? EmissionRepository.RANGE_END : to).truncatedTo(ChronoUnit.DAYS).plus(1, ChronoUnit.DAYS);
+
+        var merged = new HashMap<String, LogHistogram>();
+        try (var rows = sketchRepository.streamSketches(userId, start, until)) {
+            rows.forEach(row -> {
+                var key = switch (groupBy) {
+                    case MODEL -> row.getModel();
+                    case REGION -> row.getRegion();
+                    case MODEL_REGION -> row.getModel() + "|" + row.getRegion();
+                    case ALL -> "all";
+                };
+                merged.computeIfAbsent(key, k -> new LogHistogram()).merge(LogHistogram.fromBytes(row.getSketch()));
+            });
+        }
+
+        var result = new ArrayList<Distribution>(merged.size());
+        merged.forEach((key, histogram) -> result.add(Distribution.of(key, histogram, withBuckets)));
+        result.sort(Comparator.comparingLong(Distribution::count).reversed().thenComparing(Distribution::key));
+        return result;
+    }
+
+    private void merge(DayKey key, LogHistogram delta) {
+        sketchRepository.insertIfAbsent(TimeOrderedUuid.next(), key.userId(), key.dayStart(), key.model(), key.region(), EMPTY);
+        var row = sketchRepository.lock(key.userId(), key.dayStart(), key.model(), key.region());
+        var histogram = LogHistogram.fromBytes(row.getSketch());
+        histogram.merge(delta);
+        row.setSketch(histogram.toBytes(), histogram.count());
+    }
+
+    private static double perThousandTokens(BigDecimal co2Grams, long tokens) {
+        return co2Grams.doubleValue() * 1000 / tokens;
+    }
+
+    private record DayKey(UUID userId, Instant dayStart, String model, String region) {}
+
+    // Values in grams CO2 per 1k tokens; percentiles are within LogHistogram.RELATIVE_ACCURACY.
+    public record Distribution(
+            String key,
+            long count,
+            double min,
+            double p50,
+            double p95,
+            double p99,
+            double max,
+            @JsonInclude(JsonInclude.Include.NON_NULL) List<LogHistogram.Bucket> buckets
+    ) {
+        static Distribution of(String key, LogHistogram histogram, boolean withBuckets) {
+            return new Distribution(
+                    key,
+                    histogram.count(),
+                    histogram.min(),
+                    histogram.quantile(0.50),
+                    histogram.quantile(0.95),
+                    histogram.quantile(0.99),
+                    histogram.max(),
+                    withBuckets ? Arrays.asList(histogram.buckets()) : null
+            );
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.ecopulse.backend.service.sketch;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+// Mergeable histogram with logarithmic buckets (DDSketch layout): bucket i holds values in
+// (gamma^(i-1), gamma^i], so any quantile is reported within 1% relative error of a recorded value, and
+// merging two sketches is adding their bucket counts. Size grows with the spread of values, not their count.
+public final class LogHistogram {
+    public static final double RELATIVE_ACCURACY = 0.01;
+    // Values below this are counted as zero; far beneath any plausible grams CO2 per 1k tokens.
+    public static final double MIN_INDEXABLE = 1e-9;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final byte FORMAT = 1;
+
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public void add(double value) {
+        if (!(value >= 0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("histogram values must be finite and non-negative");
+        }
+        if (value < MIN_INDEXABLE) {
+            zeroCount++;
+        } else {
+            var index = index(value);
+            ensureCapacity(index, index);
+            counts[index - offset]++;
+        }
+        count++;
+        min = count == 1 ? value : Math.min(min, value);
+        max = count == 1 ? value : Math.max(max, value);
+    }
+
+    public void merge(LogHistogram other) {
+        if (other.count == 0) return;
+        var lo = Integer.MAX_VALUE;
+        var hi = Integer.MIN_VALUE;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] == 0) continue;
+            lo = Math.min(lo, other.offset + i);
+            hi = Math.max(hi, other.offset + i);
+        }
+        if (lo <= hi) {
+            ensureCapacity(lo, hi);
+            for (int index = lo; index <= hi; index++) {
+                counts[index - offset] += other.counts[index - other.offset];
+            }
+        }
+        zeroCount += other.zeroCount;
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    // Nearest-rank quantile, q in [0, 1]. Returns NaN for an empty histogram.
+    public double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("quantile must be between 0 and 1");
+        if (count == 0) return Double.NaN;
+        var rank = (long) Math.ceil(q * count);
+        if (rank <= 1) return min;
+        if (rank >= count) return max;
+
+        var seen = zeroCount;
+        if (seen >= rank) return 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                // Bucket midpoint in relative terms; clamping keeps the estimate inside the observed range.
+                var estimate = 2 * Math.pow(GAMMA, offset + i) / (GAMMA + 1);
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    // Bucket boundaries and counts, ascending; the zero bucket (if any) comes first with upper bound 0.
+    public Bucket[] buckets() {
+        var nonEmpty = zeroCount > 0 ? 1 : 0;
+        for (var c : counts) if (c > 0) nonEmpty++;
+        var buckets = new Bucket[nonEmpty];
+        var n = 0;
+        if (zeroCount > 0) buckets[n++] = new Bucket(0, 0, zeroCount);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) continue;
+            var index = offset + i;
+            buckets[n++] = new Bucket(Math.pow(GAMMA, index - 1), Math.pow(GAMMA, index), counts[i]);
+        }
+        return buckets;
+    }
+
+    // format byte, min, max, zero count, bucket count, then (index delta, count) pairs as varints.
+    public byte[] toBytes() {
+        var out = new ByteArrayOutputStream(32 + counts.length * 3);
+        out.write(FORMAT);
+        writeLong(out, Double.doubleToRawLongBits(min));
+        writeLong(out, Double.doubleToRawLongBits(max));
+        writeVarint(out, zeroCount);
+        var nonEmpty = 0;
+        for (var c : counts) if (c > 0) nonEmpty++;
+        writeVarint(out, nonEmpty);
+        var previous = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) continue;
+            var index = offset + i;
+            writeVarint(out, zigzag(index - previous));
+            writeVarint(out, counts[i]);
+            previous = index;
+        }
+        return out.toByteArray();
+    }
+
+    public static LogHistogram fromBytes(byte[] bytes) {
+        var histogram = new LogHistogram();
+        if (bytes == null || bytes.length == 0) return histogram;
+        try {
+            var in = ByteBuffer.wrap(bytes);
+            if (in.get() != FORMAT) throw new IllegalArgumentException("unsupported histogram format");
+            var min = Double.longBitsToDouble(in.getLong());
+            var max = Double.longBitsToDouble(in.getLong());
+            histogram.zeroCount = readVarint(in);
+            histogram.count = histogram.zeroCount;
+
+            var nonEmpty = (int) readVarint(in);
+            var indexes = new int[nonEmpty];
+            var values = new long[nonEmpty];
+            var previous = 0;
+            for (int i = 0; i < nonEmpty; i++) {
+                previous += unzigzag(readVarint(in));
+                indexes[i] = previous;
+                values[i] = readVarint(in);
+            }
+            if (nonEmpty > 0) {
+                histogram.ensureCapacity(indexes[0], indexes[nonEmpty - 1]);
+                for (int i = 0; i < nonEmpty; i++) {
+                    histogram.counts[indexes[i] - histogram.offset] += values[i];
+                    histogram.count += values[i];
+                }
+            }
+            histogram.min = min;
+            histogram.max = max;
+            return histogram;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated histogram", e);
+        }
+    }
+
+    private static int index(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    private void ensureCapacity(int lo, int hi) {
+        if (counts.length == 0) {
+            counts = new long[hi - lo + 1];
+            offset = lo;
+            return;
+        }
+        var newLo = Math.min(lo, offset);
+        var newHi = Math.max(hi, offset + counts.length - 1);
+        if (newLo == offset && newHi == offset + counts.length - 1) return;
+        // Grow with slack on the side that moved so a drifting series does not copy on every add.
+        var slack = Math.max(8, counts.length / 2);
+        if (newLo < offset) newLo -= slack;
+        if (newHi > offset + counts.length - 1) newHi += slack;
+        var grown = new long[newHi - newLo + 1];
+        System.arraycopy(counts, 0, grown, offset - newLo, counts.length);
+        counts = grown;
+        offset = newLo;
+    }
+
+    private static long zigzag(int value) {
+        return ((long) value << 1) ^ ((long) value >> 63);
+    }
+
+    private static int unzigzag(long value) {
+        return (int) ((value >>> 1) ^ -(value & 1));
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            var b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) out.write((int) (value >>> shift));
+    }
+
+    public record Bucket(double lowerExclusive, double upperInclusive, long count) {}
+}
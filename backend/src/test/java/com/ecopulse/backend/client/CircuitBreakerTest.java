@@ -0,0 +1,165 @@
+package com.ecopulse.backend.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.ecopulse.backend.client.CircuitBreaker.NOT_PERMITTED;
+import static com.ecopulse.backend.client.CircuitBreaker.State.CLOSED;
+import static com.ecopulse.backend.client.CircuitBreaker.State.HALF_OPEN;
+import static com.ecopulse.backend.client.CircuitBreaker.State.OPEN;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<String> transitions = new ArrayList<>();
+    // 50% over the last 10 calls, at least 4 recorded; 2 trial calls when half-open.
+    private final CircuitBreaker breaker = new CircuitBreaker(
+            "test", 50, 10, 4, OPEN_DURATION, 2, clock::get, (name, from, to) -> transitions.add(from + "->" + to)
+    );
+
+    @Test
+    void staysClosedBelowMinimumCallsAndThreshold() {
+        fail(3);
+        assertThat(state()).isEqualTo(CLOSED);
+
+        succeed(5);
+        fail(1);
+        assertThat(state()).isEqualTo(CLOSED);
+        assertThat(breaker.snapshot().failureRate()).isEqualTo(4 * 100f / 9);
+    }
+
+    @Test
+    void opensAtTheFailureRateAndRejectsUntilOpenDurationElapses() {
+        succeed(2);
+        fail(2);
+        assertThat(state()).isEqualTo(OPEN);
+        assertThat(breaker.tryAcquire()).isEqualTo(NOT_PERMITTED);
+        assertThat(breaker.snapshot().notPermittedCalls()).isEqualTo(1);
+
+        clock.addAndGet(OPEN_DURATION.toNanos() - 1);
+        assertThat(breaker.tryAcquire()).isEqualTo(NOT_PERMITTED);
+        assertThat(transitions).containsExactly("CLOSED->OPEN");
+    }
+
+    @Test
+    void slidingWindowForgetsOldOutcomes() {
+        fail(1);
+        succeed(9);
+        fail(1);
+        // The first failure dropped out of the window when the eleventh call was recorded.
+        assertThat(breaker.snapshot().failedCalls()).isEqualTo(1);
+        assertThat(breaker.snapshot().bufferedCalls()).isEqualTo(10);
+    }
+
+    @Test
+    void halfOpenClosesAfterAllTrialCallsSucceed() {
+        open();
+        var first = breaker.tryAcquire();
+        assertThat(state()).isEqualTo(HALF_OPEN);
+        var second = breaker.tryAcquire();
+        assertThat(second).isNotEqualTo(NOT_PERMITTED);
+        assertThat(breaker.tryAcquire()).isEqualTo(NOT_PERMITTED);
+
+        breaker.onSuccess(first);
+        assertThat(state()).isEqualTo(HALF_OPEN);
+        breaker.onSuccess(second);
+        assertThat(state()).isEqualTo(CLOSED);
+        assertThat(breaker.snapshot().bufferedCalls()).isZero();
+        assertThat(transitions).containsExactly("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED");
+    }
+
+    @Test
+    void anyTrialFailureReopens() {
+        open();
+        var first = breaker.tryAcquire();
+        var second = breaker.tryAcquire();
+        breaker.onSuccess(first);
+        breaker.onFailure(second);
+        assertThat(state()).isEqualTo(OPEN);
+        assertThat(breaker.tryAcquire()).isEqualTo(NOT_PERMITTED);
+
+        clock.addAndGet(OPEN_DURATION.toNanos());
+        assertThat(breaker.tryAcquire()).isNotEqualTo(NOT_PERMITTED);
+        assertThat(state()).isEqualTo(HALF_OPEN);
+    }
+
+    @Test
+    void ignoredTrialHandsBackItsPermit() {
+        open();
+        var first = breaker.tryAcquire();
+        breaker.tryAcquire();
+        assertThat(breaker.tryAcquire()).isEqualTo(NOT_PERMITTED);
+
+        breaker.onIgnored(first);
+        assertThat(breaker.tryAcquire()).isNotEqualTo(NOT_PERMITTED);
+        assertThat(breaker.tryAcquire()).isEqualTo(NOT_PERMITTED);
+    }
+
+    @Test
+    void lateOutcomesFromClosedCallsDoNotTouchHalfOpenTrials() {
+        // Calls let through while CLOSED are still in flight when the circuit opens and then half-opens.
+        var late = new long[6];
+        for (int i = 0; i < late.length; i++) late[i] = breaker.tryAcquire();
+        fail(4);
+        assertThat(state()).isEqualTo(OPEN);
+        clock.addAndGet(OPEN_DURATION.toNanos());
+        var trial = breaker.tryAcquire();
+        assertThat(state()).isEqualTo(HALF_OPEN);
+
+        // Cancelled or 4xx: must not hand out trial permits they never took.
+        breaker.onIgnored(late[0]);
+        breaker.onIgnored(late[1]);
+        var secondTrial = breaker.tryAcquire();
+        assertThat(secondTrial).isNotEqualTo(NOT_PERMITTED);
+        assertThat(breaker.tryAcquire()).isEqualTo(NOT_PERMITTED);
+
+        // Successes and failures of old calls say nothing about the engine's recovery.
+        breaker.onSuccess(late[2]);
+        breaker.onSuccess(late[3]);
+        assertThat(state()).isEqualTo(HALF_OPEN);
+        breaker.onFailure(late[4]);
+        assertThat(state()).isEqualTo(HALF_OPEN);
+
+        breaker.onSuccess(trial);
+        breaker.onSuccess(secondTrial);
+        assertThat(state()).isEqualTo(CLOSED);
+    }
+
+    @Test
+    void lateOutcomesDoNotLeakIntoTheNextClosedWindow() {
+        var late = breaker.tryAcquire();
+        open();
+        var trial = breaker.tryAcquire();
+        var secondTrial = breaker.tryAcquire();
+        breaker.onSuccess(trial);
+        breaker.onSuccess(secondTrial);
+        assertThat(state()).isEqualTo(CLOSED);
+
+        breaker.onFailure(late);
+        assertThat(breaker.snapshot().bufferedCalls()).isZero();
+    }
+
+    private void open() {
+        fail(4);
+        assertThat(state()).isEqualTo(OPEN);
+        clock.addAndGet(OPEN_DURATION.toNanos());
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) breaker.onSuccess(breaker.tryAcquire());
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) breaker.onFailure(breaker.tryAcquire());
+    }
+
+    private CircuitBreaker.State state() {
+        return breaker.snapshot().state();
+    }
+}
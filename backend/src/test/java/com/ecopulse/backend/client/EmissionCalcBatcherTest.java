@@ -0,0 +1,63 @@
+package com.ecopulse.backend.client;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmissionCalcBatcherTest {
+    @Test
+    void invalidItemFailsAloneAndTheRestOfTheBatchCompletes() {
+        var sent = new ArrayList<List<AiEngineClient.EmissionCalcRequest>>();
+        var batcher = new EmissionCalcBatcher(3, Duration.ofSeconds(10), requests -> {
+            sent.add(requests);
+            return Mono.just(new AiEngineClient.EmissionCalcBatchResponse(
+                    Arrays.asList(response(1), null, response(3)),
+                    List.of(new AiEngineClient.EmissionCalcItemError(1, "tokens: Input should be greater than or equal to 0"))
+            ));
+        });
+
+        var first = batcher.submit(request(1)).toFuture();
+        var invalid = batcher.submit(request(-1)).toFuture();
+        var third = batcher.submit(request(3)).toFuture();
+
+        assertThat(sent).hasSize(1);
+        assertThat(first.join().co2Grams()).isEqualByComparingTo("1");
+        assertThat(third.join().co2Grams()).isEqualByComparingTo("3");
+        assertThat(invalid).isCompletedExceptionally();
+        assertThatThrownBy(invalid::join).hasCauseInstanceOf(IllegalArgumentException.class).hasMessageContaining("tokens");
+    }
+
+    @Test
+    void batchErrorFailsEveryCaller() {
+        var batcher = new EmissionCalcBatcher(2, Duration.ofSeconds(10), requests -> Mono.error(new IllegalStateException("down")));
+        var first = batcher.submit(request(1)).toFuture();
+        var second = batcher.submit(request(2)).toFuture();
+        assertThat(first).isCompletedExceptionally();
+        assertThat(second).isCompletedExceptionally();
+    }
+
+    @Test
+    void maxBatchSizeIsBoundedByTheEngineLimit() {
+        assertThatThrownBy(() -> new EmissionCalcBatcher(EmissionCalcBatcher.ENGINE_MAX_BATCH_SIZE + 1, Duration.ofMillis(5), requests -> Mono.empty()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new EmissionCalcBatcher(0, Duration.ofMillis(5), requests -> Mono.empty()))
+                .isInstanceOf(IllegalArgumentException.class);
+        new EmissionCalcBatcher(EmissionCalcBatcher.ENGINE_MAX_BATCH_SIZE, Duration.ofMillis(5), requests -> Mono.empty());
+    }
+
+    private static AiEngineClient.EmissionCalcRequest request(long tokens) {
+        return new AiEngineClient.EmissionCalcRequest("model", "region", tokens, 1.5, BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE);
+    }
+
+    private static AiEngineClient.EmissionCalcResponse response(long co2) {
+        return new AiEngineClient.EmissionCalcResponse(BigDecimal.ONE, BigDecimal.valueOf(co2), BigDecimal.ONE, 100, null);
+    }
+}
@@ -0,0 +1,98 @@
+package com.ecopulse.backend.service.calc;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalEmissionCalculatorTest {
+    private final LocalEmissionCalculator calculator = new LocalEmissionCalculator();
+
+    @Test
+    void fixedPointMatchesExactForRandomInputs() {
+        var random = new SplittableRandom(42);
+        for (int i = 0; i < 200_000; i++) {
+            var inputs = inputs(
+                    random.nextLong(1, 5_000_000),
+                    runtime(random),
+                    decimal(random, 1, 9),
+                    decimal(random, 0, 4),
+                    decimal(random, 0, 4)
+            );
+            assertMatchesExact(inputs);
+        }
+    }
+
+    @Test
+    void measuredRuntimesWithManyFractionDigitsStayOnTheKernel() {
+        for (var runtime : new double[] {55.123456789, 0.1234567891234567, 1.0E-5, 3.3333333333333335, 1.0E-9, 123456.7890123}) {
+            var inputs = inputs(40_000, runtime, new BigDecimal("0.0000040"), new BigDecimal("410"), new BigDecimal("1.8"));
+            assertThat(LocalEmissionCalculator.calculateFixedPoint(inputs)).as("runtime %s", runtime).isNotNull();
+            assertMatchesExact(inputs);
+        }
+    }
+
+    @Test
+    void extremeRuntimesStillMatchExact() {
+        for (var runtime : new double[] {1.0E-30, 4.9E-324, 1.0E15, 9.007199254740993E15, 1.0E20}) {
+            assertMatchesExact(inputs(1_000, runtime, new BigDecimal("0.5"), new BigDecimal("400"), new BigDecimal("1.2")));
+        }
+    }
+
+    @Test
+    void overflowFallsBackToExact() {
+        var inputs = inputs(Long.MAX_VALUE / 2, 86_400, new BigDecimal("123456.789"), new BigDecimal("999999"), new BigDecimal("5"));
+        assertThat(LocalEmissionCalculator.calculateFixedPoint(inputs)).isNull();
+        assertMatchesExact(inputs);
+    }
+
+    @Test
+    void widePrecisionFactorsFallBackToExact() {
+        var inputs = inputs(1_000, 60, new BigDecimal("0.0000000000000000000123"), new BigDecimal("1E+2"), new BigDecimal("1.2"));
+        assertThat(LocalEmissionCalculator.calculateFixedPoint(inputs)).isNull();
+        assertMatchesExact(inputs);
+    }
+
+    @Test
+    void greenScoreMatchesExact() {
+        var random = new SplittableRandom(7);
+        for (int i = 0; i < 100_000; i++) {
+            var co2E8 = random.nextLong(0, 1_000_000_000_000L);
+            var tokens = random.nextLong(0, 1_000_000);
+            assertThat(FixedPointEmissionMath.greenScore(co2E8, tokens))
+                    .isEqualTo(LocalEmissionCalculator.greenScore(BigDecimal.valueOf(co2E8, 8), tokens));
+        }
+        assertThat(FixedPointEmissionMath.greenScore(0, 0)).isEqualTo(LocalEmissionCalculator.greenScore(BigDecimal.ZERO, 0));
+        assertThat(FixedPointEmissionMath.greenScore(Long.MAX_VALUE / 2, 0)).isEqualTo(FixedPointEmissionMath.SCORE_UNREPRESENTABLE);
+    }
+
+    @Test
+    void hugeCo2PerTokenTakesTheExactScore() {
+        var inputs = inputs(5_830, 78522.43531816587, new BigDecimal("8.34304"), new BigDecimal("60164.3"), new BigDecimal("81968.2"));
+        assertThat(LocalEmissionCalculator.calculateFixedPoint(inputs)).isNotNull();
+        assertMatchesExact(inputs);
+    }
+
+    private void assertMatchesExact(EmissionCalculator.Inputs inputs) {
+        assertThat(calculator.calculate(inputs)).as("%s", inputs).isEqualTo(LocalEmissionCalculator.calculateExact(inputs));
+    }
+
+    private static EmissionCalculator.Inputs inputs(long tokens, double runtime, BigDecimal power, BigDecimal intensity, BigDecimal water) {
+        return new EmissionCalculator.Inputs("model", "region", tokens, runtime, power, intensity, water);
+    }
+
+    // Whole seconds, short decimals and raw measured doubles in roughly equal parts.
+    private static double runtime(SplittableRandom random) {
+        return switch (random.nextInt(3)) {
+            case 0 -> random.nextInt(1, 100_000);
+            case 1 -> random.nextInt(1, 10_000_000) / 1000.0;
+            default -> random.nextDouble(0, 100_000);
+        };
+    }
+
+    private static BigDecimal decimal(SplittableRandom random, int minScale, int maxScale) {
+        return BigDecimal.valueOf(random.nextLong(1, 1_000_000), random.nextInt(minScale, maxScale + 1));
+    }
+}
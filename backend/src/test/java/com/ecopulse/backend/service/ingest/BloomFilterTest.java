@@ -0,0 +1,66 @@
+package com.ecopulse.backend.service.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+    private static final int KEYS = 100_000;
+
+    @Test
+    void everyPutValueIsReported() {
+        var filter = new BloomFilter(KEYS, 0.01);
+        for (int i = 0; i < KEYS; i++) filter.put(key(i));
+        for (int i = 0; i < KEYS; i++) {
+            assertThat(filter.mightContain(key(i))).as(key(i)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheConfiguredRateAtCapacity() {
+        var filter = new BloomFilter(KEYS, 0.01);
+        for (int i = 0; i < KEYS; i++) filter.put(key(i));
+
+        int falsePositives = 0;
+        for (int i = KEYS; i < 2 * KEYS; i++) {
+            if (filter.mightContain(key(i))) falsePositives++;
+        }
+        // 1% expected; a broken hash or bit layout shows up as several times that.
+        assertThat((double) falsePositives / KEYS).isLessThan(0.015);
+    }
+
+    @Test
+    void concurrentPutsAreNotLost() throws Exception {
+        var filter = new BloomFilter(KEYS, 0.01);
+        var threads = 8;
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            var tasks = new ArrayList<Future<?>>();
+            for (int t = 0; t < threads; t++) {
+                var offset = t;
+                tasks.add(executor.submit(() -> {
+                    for (int i = offset; i < KEYS; i += threads) filter.put(key(i));
+                }));
+            }
+            for (var task : tasks) task.get();
+        }
+        for (int i = 0; i < KEYS; i++) {
+            assertThat(filter.mightContain(key(i))).as(key(i)).isTrue();
+        }
+    }
+
+    @Test
+    void degenerateSizesStillWork() {
+        var filter = new BloomFilter(0, 0.5);
+        filter.put("only");
+        assertThat(filter.mightContain("only")).isTrue();
+    }
+
+    private static String key(int i) {
+        return new UUID(0x0190_0000_0000_7000L + i, i * 31L) + ":key-" + i;
+    }
+}
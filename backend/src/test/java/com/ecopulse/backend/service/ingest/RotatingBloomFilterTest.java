@@ -0,0 +1,43 @@
+package com.ecopulse.backend.service.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RotatingBloomFilterTest {
+    private static final Duration RETENTION = Duration.ofHours(24);
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void rotationKeepsValuesForOneToTwoPeriods() {
+        var filter = new RotatingBloomFilter(RETENTION, () -> new BloomFilter(1_000, 0.001), START);
+        filter.put("early");
+
+        assertThat(filter.rotateIfDue(START.plus(RETENTION).minusSeconds(1))).isFalse();
+        assertThat(filter.rotateIfDue(START.plus(RETENTION))).isTrue();
+        // Put just after the first rotation, into the new current generation.
+        filter.put("late");
+        assertThat(filter.mightContain("early")).isTrue();
+        assertThat(filter.mightContain("late")).isTrue();
+
+        assertThat(filter.rotateIfDue(START.plus(RETENTION.multipliedBy(2)))).isTrue();
+        assertThat(filter.mightContain("early")).isFalse();
+        assertThat(filter.mightContain("late")).isTrue();
+
+        assertThat(filter.rotateIfDue(START.plus(RETENTION.multipliedBy(3)))).isTrue();
+        assertThat(filter.mightContain("late")).isFalse();
+    }
+
+    @Test
+    void rotationIsMeasuredFromTheLastRotation() {
+        var filter = new RotatingBloomFilter(RETENTION, () -> new BloomFilter(1_000, 0.001), START);
+        // A late scheduler run rotates late; the next rotation is a full period after it, not after START.
+        var late = START.plus(RETENTION).plus(Duration.ofHours(5));
+        assertThat(filter.rotateIfDue(late)).isTrue();
+        assertThat(filter.rotateIfDue(START.plus(RETENTION.multipliedBy(2)))).isFalse();
+        assertThat(filter.rotateIfDue(late.plus(RETENTION))).isTrue();
+    }
+}
@@ -0,0 +1,116 @@
+package com.ecopulse.backend.service.rollup;
+
+import com.ecopulse.backend.model.EmissionRollup.Granularity;
+import com.ecopulse.backend.service.rollup.RollupPlan.Segment;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+
+import static com.ecopulse.backend.model.EmissionRollup.Granularity.DAY;
+import static com.ecopulse.backend.model.EmissionRollup.Granularity.HOUR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollupPlanTest {
+    @Test
+    void unalignedRangeSplitsIntoRawHeadHoursDaysHoursAndRawTail() {
+        var plan = RollupPlan.of(at("2026-01-01T10:30:00Z"), at("2026-01-04T05:15:00Z"));
+
+        assertThat(plan.coveredFrom()).isEqualTo(at("2026-01-01T11:00:00Z"));
+        assertThat(plan.coveredUntil()).isEqualTo(at("2026-01-04T05:00:00Z"));
+        assertThat(plan.hasRawHead()).isTrue();
+        assertThat(plan.segments()).containsExactly(
+                segment(HOUR, "2026-01-01T11:00:00Z", "2026-01-02T00:00:00Z"),
+                segment(DAY, "2026-01-02T00:00:00Z", "2026-01-04T00:00:00Z"),
+                segment(HOUR, "2026-01-04T00:00:00Z", "2026-01-04T05:00:00Z")
+        );
+    }
+
+    @Test
+    void dayAlignedRangeIsOnlyDays() {
+        var plan = RollupPlan.of(at("2026-01-01T00:00:00Z"), at("2026-01-08T00:00:00Z"));
+
+        assertThat(plan.hasRawHead()).isFalse();
+        assertThat(plan.segments()).containsExactly(segment(DAY, "2026-01-01T00:00:00Z", "2026-01-08T00:00:00Z"));
+        // to is inclusive, so logs stamped exactly at it are left to the raw tail.
+        assertThat(plan.coveredUntil()).isEqualTo(plan.to());
+    }
+
+    @Test
+    void hourBoundaryAtADayEdgeNeedsNoEmptyHourSegment() {
+        var plan = RollupPlan.of(at("2026-01-01T23:00:00Z"), at("2026-01-03T00:00:00Z"));
+
+        assertThat(plan.hasRawHead()).isFalse();
+        assertThat(plan.segments()).containsExactly(
+                segment(HOUR, "2026-01-01T23:00:00Z", "2026-01-02T00:00:00Z"),
+                segment(DAY, "2026-01-02T00:00:00Z", "2026-01-03T00:00:00Z")
+        );
+    }
+
+    @Test
+    void rangeCrossingMidnightWithoutAWholeDayUsesHoursOnly() {
+        var plan = RollupPlan.of(at("2026-01-01T22:30:00Z"), at("2026-01-02T03:20:00Z"));
+
+        assertThat(plan.segments()).containsExactly(segment(HOUR, "2026-01-01T23:00:00Z", "2026-01-02T03:00:00Z"));
+    }
+
+    @Test
+    void rangeWithoutAWholeHourIsAllRaw() {
+        var plan = RollupPlan.of(at("2026-01-01T10:10:00Z"), at("2026-01-01T10:50:00Z"));
+        assertThat(plan.covered()).isFalse();
+        assertThat(plan.hasRawHead()).isFalse();
+        assertThat(plan.coveredFrom()).isEqualTo(plan.to());
+
+        // Crossing an hour edge is still not a whole hour.
+        assertThat(RollupPlan.of(at("2026-01-01T10:10:00Z"), at("2026-01-01T11:50:00Z")).covered()).isFalse();
+    }
+
+    @Test
+    void randomRangesAreCoveredByContiguousAlignedSegments() {
+        var random = new SplittableRandom(7);
+        var origin = at("2025-12-30T00:00:00Z");
+        for (int run = 0; run < 10_000; run++) {
+            var from = origin.plusSeconds(random.nextLong(0, Duration.ofDays(10).toSeconds()));
+            var to = from.plusSeconds(random.nextLong(0, Duration.ofDays(20).toSeconds()));
+            var plan = RollupPlan.of(from, to);
+            if (!plan.covered()) {
+                assertThat(Duration.between(from, to)).isLessThan(Duration.ofHours(2));
+                continue;
+            }
+
+            assertThat(Duration.between(from, plan.coveredFrom())).isLessThan(Duration.ofHours(1)).isGreaterThanOrEqualTo(Duration.ZERO);
+            assertThat(Duration.between(plan.coveredUntil(), to)).isLessThan(Duration.ofHours(1)).isGreaterThanOrEqualTo(Duration.ZERO);
+
+            var next = plan.coveredFrom();
+            var days = 0;
+            for (var segment : plan.segments()) {
+                var unit = segment.granularity() == DAY ? ChronoUnit.DAYS : ChronoUnit.HOURS;
+                assertThat(segment.from()).isEqualTo(next);
+                assertThat(segment.from().truncatedTo(unit)).isEqualTo(segment.from());
+                assertThat(segment.until().truncatedTo(unit)).isEqualTo(segment.until());
+                assertThat(segment.from()).isBefore(segment.until());
+                if (segment.granularity() == DAY) days++;
+                // Hour segments never contain a whole UTC day that the day rollup could serve.
+                if (segment.granularity() == HOUR) {
+                    var firstMidnight = segment.from().truncatedTo(ChronoUnit.DAYS).equals(segment.from())
+                            ? segment.from()
+                            : segment.from().truncatedTo(ChronoUnit.DAYS).plus(1, ChronoUnit.DAYS);
+                    assertThat(firstMidnight.plus(1, ChronoUnit.DAYS)).isAfter(segment.until());
+                }
+                next = segment.until();
+            }
+            assertThat(next).isEqualTo(plan.coveredUntil());
+            assertThat(days).isLessThanOrEqualTo(1);
+        }
+    }
+
+    private static Instant at(String instant) {
+        return Instant.parse(instant);
+    }
+
+    private static Segment segment(Granularity granularity, String from, String until) {
+        return new Segment(granularity, at(from), at(until));
+    }
+}
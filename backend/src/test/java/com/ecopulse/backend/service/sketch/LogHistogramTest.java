@@ -0,0 +1,131 @@
+package com.ecopulse.backend.service.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class LogHistogramTest {
+    private static final double[] QUANTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999, 1};
+
+    @Test
+    void quantilesAreWithinRelativeAccuracyOfExact() {
+        var random = new SplittableRandom(11);
+        for (int run = 0; run < 20; run++) {
+            var values = new double[random.nextInt(1, 20_000)];
+            var histogram = new LogHistogram();
+            for (int i = 0; i < values.length; i++) {
+                // Log-normal spread over several orders of magnitude, like grams CO2 per 1k tokens.
+                values[i] = Math.exp(random.nextDouble(-8, 8));
+                histogram.add(values[i]);
+            }
+            assertQuantiles(histogram, values);
+        }
+    }
+
+    @Test
+    void zerosAndTinyValuesAreCountedInTheZeroBucket() {
+        var histogram = new LogHistogram();
+        var values = new double[] {0, 0, 1e-12, 0.5, 2, 4};
+        for (var value : values) histogram.add(value);
+
+        assertThat(histogram.count()).isEqualTo(6);
+        assertThat(histogram.min()).isZero();
+        assertThat(histogram.quantile(0.5)).isZero();
+        assertThat(histogram.quantile(1)).isEqualTo(4);
+        assertThat(histogram.buckets()[0]).isEqualTo(new LogHistogram.Bucket(0, 0, 3));
+    }
+
+    @Test
+    void mergeMatchesAddingEveryValueToOneHistogram() {
+        var random = new SplittableRandom(3);
+        var all = new LogHistogram();
+        var merged = new LogHistogram();
+        var values = new double[50_000];
+        for (int part = 0; part < 10; part++) {
+            var partial = new LogHistogram();
+            for (int i = 0; i < 5_000; i++) {
+                // Each part drifts to its own range, so merges have to grow the bucket array on both sides.
+                var value = Math.exp(random.nextDouble(-2, 2) + (part - 5) * 1.5);
+                values[part * 5_000 + i] = value;
+                partial.add(value);
+                all.add(value);
+            }
+            merged.merge(LogHistogram.fromBytes(partial.toBytes()));
+        }
+
+        assertThat(merged.toBytes()).isEqualTo(all.toBytes());
+        assertQuantiles(merged, values);
+    }
+
+    @Test
+    void serializationRoundTripsExactly() {
+        var random = new SplittableRandom(5);
+        for (int run = 0; run < 200; run++) {
+            var histogram = new LogHistogram();
+            var n = random.nextInt(0, 500);
+            for (int i = 0; i < n; i++) {
+                histogram.add(random.nextInt(10) == 0 ? 0 : Math.exp(random.nextDouble(-30, 30)));
+            }
+
+            var copy = LogHistogram.fromBytes(histogram.toBytes());
+            assertThat(copy.count()).isEqualTo(histogram.count());
+            assertThat(copy.min()).isEqualTo(histogram.min());
+            assertThat(copy.max()).isEqualTo(histogram.max());
+            assertThat(copy.buckets()).containsExactly(histogram.buckets());
+            assertThat(copy.toBytes()).isEqualTo(histogram.toBytes());
+            for (var q : QUANTILES) {
+                assertThat(copy.quantile(q)).isEqualTo(histogram.quantile(q));
+            }
+        }
+    }
+
+    @Test
+    void emptyHistogramRoundTrips() {
+        var empty = LogHistogram.fromBytes(new LogHistogram().toBytes());
+        assertThat(empty.count()).isZero();
+        assertThat(empty.quantile(0.5)).isNaN();
+        assertThat(empty.buckets()).isEmpty();
+        assertThat(LogHistogram.fromBytes(null).count()).isZero();
+
+        var histogram = new LogHistogram();
+        histogram.add(7);
+        histogram.merge(empty);
+        assertThat(histogram.count()).isEqualTo(1);
+        assertThat(histogram.quantile(0.5)).isEqualTo(7);
+    }
+
+    @Test
+    void rejectsInvalidValuesAndInput() {
+        var histogram = new LogHistogram();
+        assertThatThrownBy(() -> histogram.add(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> histogram.add(Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> histogram.add(Double.POSITIVE_INFINITY)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> histogram.quantile(1.5)).isInstanceOf(IllegalArgumentException.class);
+
+        histogram.add(1);
+        histogram.add(100);
+        var bytes = histogram.toBytes();
+        assertThatThrownBy(() -> LogHistogram.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        bytes[0] = 99;
+        assertThatThrownBy(() -> LogHistogram.fromBytes(bytes)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Nearest-rank on the sorted values, the definition LogHistogram.quantile approximates.
+    private static void assertQuantiles(LogHistogram histogram, double[] values) {
+        var sorted = values.clone();
+        Arrays.sort(sorted);
+        assertThat(histogram.count()).isEqualTo(sorted.length);
+        for (var q : QUANTILES) {
+            var rank = Math.max(1, (long) Math.ceil(q * sorted.length));
+            var exact = sorted[(int) rank - 1];
+            assertThat(histogram.quantile(q)).as("q=%s n=%s", q, sorted.length)
+                    .isCloseTo(exact, within(exact * LogHistogram.RELATIVE_ACCURACY * (1 + 1e-9)));
+        }
+    }
+}